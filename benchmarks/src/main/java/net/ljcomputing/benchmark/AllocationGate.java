@@ -0,0 +1,153 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the {@link StampingBenchmark} with the GC profiler and compares the
+ * bytes allocated per operation of each benchmark with its threshold. The
+ * thresholds are read from <code>allocation-thresholds.properties</code> on
+ * the class path, or from the file named by the 
+ * <code>allocation.thresholds</code> system property; benchmarks without a
+ * threshold are reported but not checked. Exits with status 1 when any
+ * benchmark allocates more than its threshold.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public final class AllocationGate {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AllocationGate.class);
+
+  /** The name of the normalized allocation rate reported by the GC profiler. */
+  private static final String ALLOCATION_RATE_NORM = "gc.alloc.rate.norm";
+
+  /** The default thresholds resource. */
+  private static final String THRESHOLDS = "allocation-thresholds.properties";
+
+  /**
+   * Instantiates a new allocation gate.
+   */
+  private AllocationGate() {
+  }
+
+  /**
+   * The main method.
+   *
+   * @param args the benchmark includes, the stamping benchmark by default
+   * @throws RunnerException the runner exception
+   * @throws IOException Signals that the thresholds could not be read.
+   */
+  public static void main(final String[] args) throws RunnerException, IOException {
+    final Properties thresholds = thresholds();
+    final OptionsBuilder options = new OptionsBuilder();
+    options.addProfiler(GCProfiler.class).resultFormat(ResultFormatType.JSON)
+        .result(System.getProperty("benchmark.results", ".") + "/jmh-result-allocation.json");
+
+    if (args.length == 0) {
+      options.include(StampingBenchmark.class.getSimpleName());
+    }
+
+    for (final String include : args) {
+      options.include(include);
+    }
+
+    final Collection<RunResult> results = new Runner(options.build()).run();
+    int failures = 0;
+
+    for (final RunResult result : results) {
+      final String benchmark = result.getParams().getBenchmark();
+      final String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+      final Double allocated = allocated(result.getSecondaryResults());
+      final String threshold = thresholds.getProperty(name);
+
+      if (allocated == null) {
+        LOGGER.warn("{}: no allocation rate reported", name);
+      } else if (threshold == null) {
+        LOGGER.info("{}: {} bytes/op (no threshold)", name, allocated);
+      } else if (allocated > Double.parseDouble(threshold)) {
+        LOGGER.error("{}: {} bytes/op exceeds the threshold of {} bytes/op", name, allocated,
+            threshold);
+        failures++;
+      } else {
+        LOGGER.info("{}: {} bytes/op within the threshold of {} bytes/op", name, allocated,
+            threshold);
+      }
+    }
+
+    if (failures > 0) {
+      LOGGER.error("{} benchmark(s) exceeded their allocation threshold", failures);
+      System.exit(1); //NOPMD
+    }
+  }
+
+  /**
+   * Gets the normalized allocation rate from the secondary results.
+   *
+   * @param secondaryResults the secondary results
+   * @return the bytes allocated per operation, null if not reported
+   */
+  private static Double allocated(final Map<String, Result> secondaryResults) {
+    for (final Map.Entry<String, Result> entry : secondaryResults.entrySet()) {
+      if (entry.getKey().endsWith(ALLOCATION_RATE_NORM)) {
+        return entry.getValue().getScore();
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Load the thresholds.
+   *
+   * @return the thresholds, in bytes per operation keyed by benchmark name
+   * @throws IOException Signals that the thresholds could not be read.
+   */
+  private static Properties thresholds() throws IOException {
+    final Properties thresholds = new Properties();
+    final String file = System.getProperty("allocation.thresholds");
+
+    try (InputStream input = file == null
+        ? AllocationGate.class.getClassLoader().getResourceAsStream(THRESHOLDS)
+        : new FileInputStream(file)) {
+      if (input == null) {
+        throw new IOException(THRESHOLDS + " not found");
+      }
+
+      thresholds.load(input);
+    }
+
+    return thresholds;
+  }
+}
@@ -0,0 +1,216 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.ljcomputing.index.EnableIndexedRepositories;
+import net.ljcomputing.index.IndexedPersistenceUnitPostProcessor;
+
+/**
+ * Benchmark persistence configuration, an in-memory embedded Derby database
+ * behind a Hikari connection pool.
+ * <p>
+ * By default entities and repositories are scanned for and the schema is 
+ * generated. With the <code>indexed</code> profile active, they are read 
+ * from the build-time index instead, and the schema is created by the 
+ * migration script and validated.
+ * </p>
+ * 
+ * @author James G. Willmore
+ *
+ */
+@Configuration
+@PropertySource("classpath:benchmark.properties")
+@ComponentScan(basePackages = { "net.ljcomputing.benchmark" })
+@EnableTransactionManagement
+public class BenchmarkConfiguration {
+
+  /** The profile reading entities and repositories from the index. */
+  public static final String INDEXED = "indexed";
+
+  /** The schema migration scripts, run in order on the new in-memory database. */
+  private static final String[] SCHEMA = { "db/migration/V1__create_benchmark_schema.sql",
+      "db/migration/V2__create_pooled_benchmark_schema.sql" };
+
+  /** The environment. */
+  @Autowired
+  private transient Environment environment;
+
+  /** The url. */
+  @Value("${datasource.url}")
+  private transient String url;
+
+  /** The username. */
+  @Value("${datasource.username}")
+  private transient String username;
+
+  /** The password. */
+  @Value("${datasource.password}")
+  private transient String password;
+
+  /** The pool name. */
+  @Value("${datasource.poolName}")
+  private transient String poolName;
+
+  /** The maximum pool size. */
+  @Value("${datasource.maximumPoolSize}")
+  private transient int maximumPoolSize;
+
+  /** The JDBC batch size. */
+  @Value("${datasource.batchSize}")
+  private transient int batchSize;
+
+  /**
+   * Property sources placeholder configurer.
+   *
+   * @return the property sources placeholder configurer
+   */
+  @Bean
+  public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+    return new PropertySourcesPlaceholderConfigurer();
+  }
+
+  /**
+   * Data source.
+   *
+   * @return the data source
+   */
+  @Bean(destroyMethod = "close")
+  public DataSource dataSource() {
+    final HikariConfig hikariConfig = new HikariConfig();
+    hikariConfig.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+    hikariConfig.setJdbcUrl(url);
+    hikariConfig.setUsername(username);
+    hikariConfig.setPassword(password);
+    hikariConfig.setPoolName(poolName);
+    hikariConfig.setMaximumPoolSize(maximumPoolSize);
+
+    final DataSource dataSource = new HikariDataSource(hikariConfig);
+
+    if (isIndexed()) {
+      final ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+
+      for (final String script : SCHEMA) {
+        populator.addScript(new ClassPathResource(script));
+      }
+
+      DatabasePopulatorUtils.execute(populator, dataSource);
+    }
+
+    return dataSource;
+  }
+
+  /**
+   * Entity manager factory.
+   *
+   * @return the entity manager factory
+   */
+  @Bean
+  public EntityManagerFactory entityManagerFactory() {
+    final HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+    vendorAdapter.setGenerateDdl(!isIndexed());
+
+    final Map<String, Object> properties = new HashMap<String, Object>();
+    properties.put("hibernate.jdbc.batch_size", batchSize);
+    properties.put("hibernate.order_inserts", true);
+    properties.put("hibernate.order_updates", true);
+
+    final LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+    factory.setJpaVendorAdapter(vendorAdapter);
+
+    if (isIndexed()) {
+      factory.setPackagesToScan();
+      factory.setPersistenceUnitPostProcessors(
+          new IndexedPersistenceUnitPostProcessor("net.ljcomputing.benchmark"));
+      properties.put("hibernate.hbm2ddl.auto", "validate");
+    } else {
+      factory.setPackagesToScan("net.ljcomputing.benchmark");
+    }
+
+    factory.setDataSource(dataSource());
+    factory.setJpaPropertyMap(properties);
+    factory.afterPropertiesSet();
+
+    return factory.getObject();
+  }
+
+  /**
+   * Transaction manager.
+   *
+   * @return the JPA transaction manager
+   */
+  @Bean
+  public PlatformTransactionManager transactionManager() {
+    final JpaTransactionManager txManager = new JpaTransactionManager();
+    txManager.setEntityManagerFactory(entityManagerFactory());
+    return txManager;
+  }
+
+  /**
+   * Checks if entities and repositories are read from the index.
+   *
+   * @return true, if the indexed profile is active
+   */
+  private boolean isIndexed() {
+    return environment.acceptsProfiles(INDEXED);
+  }
+
+  /**
+   * Repositories scanned for, by default.
+   */
+  @Configuration
+  @Profile("!" + INDEXED)
+  @EnableJpaRepositories(basePackages = { "net.ljcomputing.benchmark" })
+  static class ScannedRepositories {
+  }
+
+  /**
+   * Repositories read from the index, with the indexed profile.
+   */
+  @Configuration
+  @Profile(INDEXED)
+  @EnableIndexedRepositories(basePackages = { "net.ljcomputing.benchmark" })
+  static class IndexedRepositories {
+  }
+}
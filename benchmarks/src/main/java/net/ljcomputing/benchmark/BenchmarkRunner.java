@@ -0,0 +1,81 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.io.File;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count, single threaded and then
+ * multi-threaded by default, writing the results of each run as JSON to
+ * <code>jmh-result-&lt;threads&gt;t.json</code> so that results of two
+ * versions can be diffed. Standard JMH command line options are honoured;
+ * when <code>-t</code> is given only that thread count is run.
+ * <p>
+ * The thread counts are set by the <code>benchmark.threads</code> system
+ * property (default <code>1,4</code>) and the result directory by the
+ * <code>benchmark.results</code> system property (default the working
+ * directory).
+ * </p>
+ * 
+ * @author James G. Willmore
+ *
+ */
+public final class BenchmarkRunner {
+
+  /**
+   * Instantiates a new benchmark runner.
+   */
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * The main method.
+   *
+   * @param args the JMH command line arguments
+   * @throws RunnerException the runner exception
+   * @throws CommandLineOptionException the command line option exception
+   */
+  public static void main(final String[] args) 
+      throws RunnerException, CommandLineOptionException {
+    final CommandLineOptions commandLine = new CommandLineOptions(args);
+    final String[] threadCounts = commandLine.getThreads().hasValue()
+        ? new String[] { commandLine.getThreads().get().toString() }
+        : System.getProperty("benchmark.threads", "1,4").split(",");
+    final File results = new File(System.getProperty("benchmark.results", "."));
+
+    for (final String threadCount : threadCounts) {
+      final int threads = Integer.parseInt(threadCount.trim());
+      final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+          .threads(threads).resultFormat(ResultFormatType.JSON)
+          .result(new File(results, "jmh-result-" + threads + "t.json").getPath());
+
+      if (commandLine.getIncludes().isEmpty()) {
+        options.include(EntityServiceBenchmark.class.getSimpleName());
+      }
+
+      new Runner(options.build()).run();
+    }
+  }
+}
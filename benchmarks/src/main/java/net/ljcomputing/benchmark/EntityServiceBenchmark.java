@@ -0,0 +1,151 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the entity service write and read paths. The thread count
+ * is chosen by the {@link BenchmarkRunner}.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityServiceBenchmark {
+
+  /** The number of rows deleted per measured iteration. */
+  private static final int DELETE_BATCH = 1000;
+
+  /**
+   * Rows inserted before each iteration for a thread to delete.
+   */
+  @State(Scope.Thread)
+  public static class Deletable {
+
+    /** The rows to delete. */
+    private List<BenchmarkEntity> entities;
+
+    /** The index of the next row to delete. */
+    private int next;
+
+    /**
+     * Insert the rows deleted by the next iteration.
+     *
+     * @param persistence the persistence state
+     */
+    @Setup(Level.Iteration)
+    public void setUp(final PersistenceState persistence) {
+      entities = persistence.create(DELETE_BATCH, "delete");
+      next = 0;
+    }
+
+    /**
+     * Gets the next row to delete.
+     *
+     * @return the entity
+     */
+    BenchmarkEntity next() {
+      return entities.get(next++);
+    }
+  }
+
+  /**
+   * Benchmark inserting a single row.
+   *
+   * @param persistence the persistence state
+   * @return the saved entity
+   */
+  @Benchmark
+  public BenchmarkEntity createOrUpdate(final PersistenceState persistence) {
+    return persistence.getService().createOrUpdate(PersistenceState.newEntity("create"));
+  }
+
+  /**
+   * Benchmark reading a random seeded row by id.
+   *
+   * @param persistence the persistence state
+   * @return the entity
+   */
+  @Benchmark
+  public BenchmarkEntity readById(final PersistenceState persistence) {
+    final Long[] ids = persistence.getIds();
+    return persistence.getService().readById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+  }
+
+  /**
+   * Benchmark reading the whole table into a list.
+   *
+   * @param persistence the persistence state
+   * @return the entities
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<BenchmarkEntity> readAll(final PersistenceState persistence) {
+    return persistence.getService().readAll();
+  }
+
+  /**
+   * Benchmark streaming the whole table.
+   *
+   * @param persistence the persistence state
+   * @param blackhole the blackhole
+   * @return the number of rows read
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long readAllStreaming(final PersistenceState persistence, final Blackhole blackhole) {
+    return persistence.getService().readAll(blackhole::consume);
+  }
+
+  /**
+   * Benchmark deleting single rows. Each measured iteration deletes a batch
+   * of rows inserted before it, so the score is the time per batch.
+   *
+   * @param persistence the persistence state
+   * @param deletable the rows to delete
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3, batchSize = DELETE_BATCH)
+  @Measurement(iterations = 5, batchSize = DELETE_BATCH)
+  public void delete(final PersistenceState persistence, final Deletable deletable) {
+    persistence.getService().delete(deletable.next());
+  }
+}
@@ -0,0 +1,126 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Benchmark of bulk inserts with identity id generation, reading back the
+ * generated key of each row, against pooled sequence id generation, sent as
+ * JDBC batches. Each operation inserts a block of rows through
+ * <code>createOrUpdateAll</code>; the rows are deleted after each iteration.
+ *
+ * @author James G. Willmore
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentifierGenerationBenchmark {
+
+  /** The number of rows inserted per operation. */
+  private static final int ROWS = 1000;
+
+  /** The application context. */
+  private AnnotationConfigApplicationContext context;
+
+  /** The identity generated entity service. */
+  private BenchmarkEntityService identityService;
+
+  /** The pooled sequence generated entity service. */
+  private PooledBenchmarkEntityService pooledService;
+
+  /**
+   * Start the application context.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new AnnotationConfigApplicationContext(BenchmarkConfiguration.class);
+    identityService = context.getBean(BenchmarkEntityService.class);
+    pooledService = context.getBean(PooledBenchmarkEntityService.class);
+  }
+
+  /**
+   * Delete the rows inserted by the iteration.
+   */
+  @TearDown(Level.Iteration)
+  public void deleteRows() {
+    identityService.deleteAll();
+    pooledService.deleteAll();
+  }
+
+  /**
+   * Close the application context.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  /**
+   * Benchmark inserting rows with identity id generation.
+   *
+   * @return the number of rows inserted
+   */
+  @Benchmark
+  public long identity() {
+    final List<BenchmarkEntity> entities = new ArrayList<BenchmarkEntity>(ROWS);
+
+    for (int i = 0; i < ROWS; i++) {
+      entities.add(PersistenceState.newEntity("identity " + i));
+    }
+
+    return identityService.createOrUpdateAll(entities);
+  }
+
+  /**
+   * Benchmark inserting rows with pooled sequence id generation.
+   *
+   * @return the number of rows inserted
+   */
+  @Benchmark
+  public long pooled() {
+    final List<PooledBenchmarkEntity> entities = new ArrayList<PooledBenchmarkEntity>(ROWS);
+
+    for (int i = 0; i < ROWS; i++) {
+      final PooledBenchmarkEntity entity = new PooledBenchmarkEntity();
+      entity.setName("pooled " + i);
+      entities.add(entity);
+    }
+
+    return pooledService.createOrUpdateAll(entities);
+  }
+}
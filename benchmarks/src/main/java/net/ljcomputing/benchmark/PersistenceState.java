@@ -0,0 +1,126 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * The persistence stack shared by the benchmark threads: the Spring context,
+ * the entity service and a table seeded with the configured number of rows.
+ * Each benchmark runs in its own fork, so each starts from a freshly seeded
+ * in-memory database.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@State(Scope.Benchmark)
+public class PersistenceState {
+
+  /** The number of rows seeded into the table before measuring. */
+  @Param({ "1000", "10000", "100000" })
+  public int tableSize;
+
+  /** The application context. */
+  private AnnotationConfigApplicationContext context;
+
+  /** The entity service. */
+  private BenchmarkEntityService service;
+
+  /** The ids of the seeded rows. */
+  private Long[] ids;
+
+  /**
+   * Start the application context and seed the table.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new AnnotationConfigApplicationContext(BenchmarkConfiguration.class);
+    service = context.getBean(BenchmarkEntityService.class);
+
+    final List<BenchmarkEntity> entities = create(tableSize, "seed");
+    ids = new Long[entities.size()];
+
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = entities.get(i).getId();
+    }
+  }
+
+  /**
+   * Close the application context.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  /**
+   * Gets the entity service.
+   *
+   * @return the entity service
+   */
+  public BenchmarkEntityService getService() {
+    return service;
+  }
+
+  /**
+   * Gets the ids of the seeded rows.
+   *
+   * @return the ids
+   */
+  public Long[] getIds() {
+    return ids;
+  }
+
+  /**
+   * Create and save new entities in a single batched transaction.
+   *
+   * @param count the number of entities
+   * @param prefix the name prefix
+   * @return the saved entities
+   */
+  public List<BenchmarkEntity> create(final int count, final String prefix) {
+    final List<BenchmarkEntity> entities = new ArrayList<BenchmarkEntity>(count);
+
+    for (int i = 0; i < count; i++) {
+      entities.add(newEntity(prefix + " " + i));
+    }
+
+    service.createOrUpdateAll(entities);
+    return entities;
+  }
+
+  /**
+   * Create a new, unsaved, entity.
+   *
+   * @param name the name
+   * @return the entity
+   */
+  public static BenchmarkEntity newEntity(final String name) {
+    final BenchmarkEntity entity = new BenchmarkEntity();
+    entity.setName(name);
+    return entity;
+  }
+}
@@ -0,0 +1,179 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import net.ljcomputing.aspect.CreateEntityAspect;
+import net.ljcomputing.entity.PersistedEntityListener;
+import net.ljcomputing.id.RandomUuidGenerator;
+import net.ljcomputing.id.TimeOrderedUuidGenerator;
+import net.ljcomputing.id.UuidGenerator;
+
+/**
+ * Microbenchmarks of the entity stamping hot path: the aspect dispatch, UUID
+ * generation and formatting, and the time stamps. Run with the GC profiler
+ * (<code>-prof gc</code>) to report the bytes allocated per operation as
+ * <code>gc.alloc.rate.norm</code>; {@link AllocationGate} does so and fails
+ * when allocation exceeds the configured thresholds.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StampingBenchmark {
+
+  /** The repository proxy advised by the stamping aspect. */
+  private BenchmarkEntityRepository repository;
+
+  /** The entity listener. */
+  private PersistedEntityListener listener;
+
+  /** The random UUID generator. */
+  private UuidGenerator randomUuidGenerator;
+
+  /** The time ordered UUID generator. */
+  private UuidGenerator timeOrderedUuidGenerator;
+
+  /** The entity stamped as modified. */
+  private BenchmarkEntity modified;
+
+  /**
+   * Create the repository proxy, advised by the aspect, over a repository 
+   * that only returns the saved entity, so the database is not measured.
+   */
+  @Setup
+  public void setUp() {
+    final BenchmarkEntityRepository target = (BenchmarkEntityRepository) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] { BenchmarkEntityRepository.class },
+        (proxy, method, args) -> "save".equals(method.getName()) ? args[0] : null);
+    final AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.addAspect(new CreateEntityAspect());
+    repository = factory.getProxy();
+
+    listener = new PersistedEntityListener();
+    randomUuidGenerator = new RandomUuidGenerator();
+    timeOrderedUuidGenerator = new TimeOrderedUuidGenerator();
+    modified = new BenchmarkEntity();
+    modified.modifiedAt();
+  }
+
+  /**
+   * Baseline: allocate an entity without stamping it.
+   *
+   * @return the entity
+   */
+  @Benchmark
+  public BenchmarkEntity newEntity() {
+    return new BenchmarkEntity();
+  }
+
+  /**
+   * Stamp a new entity through the aspect advised repository save.
+   *
+   * @return the entity
+   */
+  @Benchmark
+  public BenchmarkEntity aspectSave() {
+    return repository.save(new BenchmarkEntity());
+  }
+
+  /**
+   * Stamp a new entity through the entity listener, as invoked by the 
+   * persistence provider before insert.
+   *
+   * @return the entity
+   */
+  @Benchmark
+  public BenchmarkEntity listenerPrePersist() {
+    final BenchmarkEntity entity = new BenchmarkEntity();
+    listener.prePersist(entity);
+    return entity;
+  }
+
+  /**
+   * Set the UUID of a new entity.
+   *
+   * @return the entity
+   */
+  @Benchmark
+  public BenchmarkEntity createUuid() {
+    final BenchmarkEntity entity = new BenchmarkEntity();
+    entity.createUuid();
+    return entity;
+  }
+
+  /**
+   * Generate a random UUID.
+   *
+   * @return the UUID
+   */
+  @Benchmark
+  public UUID randomUuid() {
+    return randomUuidGenerator.generate();
+  }
+
+  /**
+   * Generate a time ordered UUID.
+   *
+   * @return the UUID
+   */
+  @Benchmark
+  public UUID timeOrderedUuid() {
+    return timeOrderedUuidGenerator.generate();
+  }
+
+  /**
+   * Generate a time ordered UUID and format it as stored.
+   *
+   * @return the formatted UUID
+   */
+  @Benchmark
+  public String uuidToString() {
+    return timeOrderedUuidGenerator.generate().toString();
+  }
+
+  /**
+   * Stamp an existing entity as modified.
+   *
+   * @return the modified time stamp
+   */
+  @Benchmark
+  public Long modifiedAt() {
+    modified.modifiedAt();
+    return modified.getModifiedTs();
+  }
+}
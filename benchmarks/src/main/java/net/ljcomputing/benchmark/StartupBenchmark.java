@@ -0,0 +1,117 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.benchmark;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Benchmark of the time to start the persistence stack, scanning for
+ * entities and repositories and generating the schema, against reading 
+ * them from the build-time index and validating the migrated schema. 
+ * <p>
+ * Startup is measured cold, once per fork; run with <code>-t 1</code>, 
+ * e.g. <code>java -jar target/benchmarks.jar StartupBenchmark -t 1</code>.
+ * Each start uses a new in-memory database, dropped afterwards.
+ * </p>
+ * 
+ * @author James G. Willmore
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+  /** The data source URL property, overriding benchmark.properties. */
+  private static final String URL = "datasource.url";
+
+  /** The number of databases created, naming the next. */
+  private static final AtomicInteger DATABASES = new AtomicInteger();
+
+  /** The bootstrap: scanned, or indexed. */
+  @Param({ "scanned", BenchmarkConfiguration.INDEXED })
+  public String bootstrap;
+
+  /** The database name. */
+  private String database;
+
+  /** The application context. */
+  private AnnotationConfigApplicationContext context;
+
+  /**
+   * Point the data source at a new in-memory database.
+   */
+  @Setup(Level.Invocation)
+  public void setUp() {
+    database = "startup" + DATABASES.incrementAndGet();
+    System.setProperty(URL, "jdbc:derby:memory:" + database + ";create=true");
+  }
+
+  /**
+   * Benchmark starting the application context.
+   *
+   * @return the application context
+   */
+  @Benchmark
+  public AnnotationConfigApplicationContext start() {
+    context = new AnnotationConfigApplicationContext();
+
+    if (BenchmarkConfiguration.INDEXED.equals(bootstrap)) {
+      context.getEnvironment().setActiveProfiles(BenchmarkConfiguration.INDEXED);
+    }
+
+    context.register(BenchmarkConfiguration.class);
+    context.refresh();
+    return context;
+  }
+
+  /**
+   * Close the application context and drop its database.
+   */
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    context.close();
+    System.clearProperty(URL);
+
+    try {
+      DriverManager.getConnection("jdbc:derby:memory:" + database + ";drop=true");
+    } catch (SQLException expected) { //NOPMD
+      // Derby reports a dropped database with an exception
+    }
+  }
+}
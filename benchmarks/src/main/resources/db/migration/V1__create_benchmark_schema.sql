@@ -0,0 +1,13 @@
+-- Schema of the benchmark entity, validated by Hibernate with the indexed profile.
+
+create table BENCHMARK_ENTITY (
+  ID bigint generated by default as identity,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint BENCHMARK_ENTITY_PK primary key (ID),
+  constraint BENCHMARK_ENTITY_UUID_UK unique (UUID)
+);
+
+create index BENCHMARK_ENTITY_MODIFIED_IDX on BENCHMARK_ENTITY (MODIFIED_TS, ID);
@@ -0,0 +1,14 @@
+-- Schema of the pooled benchmark entity, validated by Hibernate with the indexed profile.
+
+create table POOLED_BENCHMARK_ENTITY (
+  ID bigint not null,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint POOLED_BENCHMARK_ENTITY_PK primary key (ID),
+  constraint POOLED_BENCHMARK_ENTITY_UUID_UK unique (UUID)
+);
+
+-- the increment is the default pooled id allocation size
+create sequence PooledBenchmarkEntity_SEQ as bigint start with 1 increment by 50;
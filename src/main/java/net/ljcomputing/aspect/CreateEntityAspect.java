@@ -18,6 +18,7 @@ package net.ljcomputing.aspect;
 
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import net.ljcomputing.entity.PersistedEntity;
@@ -26,12 +27,21 @@ import net.ljcomputing.entity.PersistedEntity;
  * Aspect that modified the entity prior to insert.
  *  Attributes that are modified are the created and
  *  modified time stamps.
+ *  
+ * <p>Entities extending {@link net.ljcomputing.entity.AbstractBasePersistedEntity}
+ *  are also stamped by {@link net.ljcomputing.entity.PersistedEntityListener}
+ *  on every write path, without proxy dispatch. The aspect stays enabled by
+ *  default, for entities that only implement {@link PersistedEntity}; when
+ *  all entities extend the base class it can be disabled with 
+ *  <code>entity.stamping.aspect=false</code>.</p>
  * 
  * @author James G. Willmore
  *
  */
 @Aspect
 @Component
+@ConditionalOnProperty(name = "entity.stamping.aspect", havingValue = "true",
+    matchIfMissing = true)
 public class CreateEntityAspect {
 
   /**
@@ -0,0 +1,112 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.aspect;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import net.ljcomputing.statistics.StatementScopes;
+import net.ljcomputing.statistics.StatementStatistics;
+
+/**
+ * Aspect counting the statements, entity loads, collection fetches and 
+ *  flushes of each entity service and associated entities service call, and
+ *  of each transaction. Calls and transactions preparing more statements 
+ *  than <code>entity.statistics.threshold</code> (default 10) are logged as
+ *  warnings, so N+1 selects show up; the others are logged at debug level.
+ *  
+ * <p>Enabled with <code>entity.statistics.enabled=true</code>. Statements are
+ *  only counted when {@link net.ljcomputing.statistics.CountingStatementInspector}
+ *  is the Hibernate statement inspector, as set by the persistence 
+ *  auto-configuration when statistics are enabled.</p>
+ * 
+ * @author James G. Willmore
+ *
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "entity.statistics.enabled", havingValue = "true")
+public class StatementStatisticsAspect {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(StatementStatisticsAspect.class);
+
+  /** The number of statements above which a call or transaction is logged as a warning. */
+  @Value("${entity.statistics.threshold:10}")
+  private transient long threshold;
+
+  /**
+   * Start opening a scope for each transaction.
+   */
+  @PostConstruct
+  public void init() {
+    StatementScopes.setTransactionListener(this::report);
+  }
+
+  /**
+   * Stop opening transaction scopes.
+   */
+  @PreDestroy
+  public void destroy() {
+    StatementScopes.setTransactionListener(null);
+  }
+
+  /**
+   * Count the work of a service call.
+   *
+   * @param joinPoint the join point
+   * @return the result of the call
+   * @throws Throwable the throwable thrown by the call
+   */
+  @Around("execution(public * net.ljcomputing.service.EntityService+.*(..))"
+      + " || execution(public * net.ljcomputing.service.AssociatedEntitiesService+.*(..))")
+  public Object count(final ProceedingJoinPoint joinPoint) throws Throwable { //NOPMD
+    final StatementStatistics statistics = StatementScopes.open(
+        joinPoint.getTarget().getClass().getSimpleName() + "."
+        + joinPoint.getSignature().getName());
+
+    try {
+      return joinPoint.proceed();
+    } finally {
+      StatementScopes.close(statistics);
+      report(statistics);
+    }
+  }
+
+  /**
+   * Log the statistics of a call or transaction.
+   *
+   * @param statistics the statistics
+   */
+  private void report(final StatementStatistics statistics) {
+    if (statistics.getStatements() > threshold) {
+      LOGGER.warn("{} statements exceed the threshold of {}: {}", 
+          statistics.getStatements(), threshold, statistics);
+    } else {
+      LOGGER.debug("{}", statistics);
+    }
+  }
+}
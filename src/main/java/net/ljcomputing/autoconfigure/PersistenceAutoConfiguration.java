@@ -0,0 +1,196 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.autoconfigure;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.ljcomputing.datasource.StatementCacheProperties;
+import net.ljcomputing.metrics.PoolMetricsTrackerFactory;
+
+/**
+ * Persistence auto-configuration, registered in 
+ *  <code>META-INF/spring.factories</code>. When <code>datasource.url</code> 
+ *  is set, it provides a HikariCP data source, unless one is defined, with:
+ *  
+ * <ul>
+ * <li>the statement cache and batch rewriting properties of the driver
+ *  (see {@link StatementCacheProperties});</li>
+ * <li>pool wait, usage, timeout and connection count metrics, read from 
+ *  the {@link PoolMetricsTrackerFactory} bean or through JMX, and a sizing
+ *  warning when callers wait for a connection;</li>
+ * <li>JDBC batching of inserts and updates on the entity manager factory,
+ *  and statement counting when statement statistics are enabled (see 
+ *  {@link JpaBatchingPostProcessor}).</li>
+ * </ul>
+ * 
+ * <p>The pool is configured by the <code>datasource.*</code> properties: 
+ *  <code>url</code>, <code>username</code>, <code>password</code>, 
+ *  <code>driver.class</code>, <code>poolName</code>, 
+ *  <code>maximumPoolSize</code>, <code>minimumIdle</code>, 
+ *  <code>connectionTimeout</code>, <code>idleTimeout</code>, 
+ *  <code>maxLifetime</code>, <code>statementCacheSize</code>, 
+ *  <code>statementCacheSqlLimit</code>, <code>batchSize</code> and 
+ *  <code>poolWaitWarningMillis</code>.
+ *
+ * @author James G. Willmore
+ */
+@Configuration
+@ConditionalOnClass(HikariDataSource.class)
+@ConditionalOnProperty("datasource.url")
+@AutoConfigureBefore({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class })
+public class PersistenceAutoConfiguration {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PersistenceAutoConfiguration.class);
+
+  /** The default JDBC batch size. */
+  private static final int DEFAULT_BATCH_SIZE = 50;
+
+  /** The url. */
+  @Value("${datasource.url}")
+  private transient String url;
+
+  /** The username. */
+  @Value("${datasource.username:}")
+  private transient String username;
+
+  /** The password. */
+  @Value("${datasource.password:}")
+  private transient String password;
+
+  /** The driver class name; found from the url when not set. */
+  @Value("${datasource.driver.class:}")
+  private transient String driverClassName;
+
+  /** The pool name. */
+  @Value("${datasource.poolName:jpa-entity}")
+  private transient String poolName;
+
+  /** The maximum pool size. */
+  @Value("${datasource.maximumPoolSize:10}")
+  private transient int maximumPoolSize;
+
+  /** The minimum idle; a fixed size pool by default. */
+  @Value("${datasource.minimumIdle:${datasource.maximumPoolSize:10}}")
+  private transient int minimumIdle;
+
+  /** The connection timeout. */
+  @Value("${datasource.connectionTimeout:30000}")
+  private transient long connectionTimeout;
+
+  /** The idle timeout. */
+  @Value("${datasource.idleTimeout:600000}")
+  private transient long idleTimeout;
+
+  /** The max lifetime. */
+  @Value("${datasource.maxLifetime:1800000}")
+  private transient long maxLifetime;
+
+  /** The number of prepared statements cached per connection. */
+  @Value("${datasource.statementCacheSize:250}")
+  private transient int statementCacheSize;
+
+  /** The length of the longest statement cached. */
+  @Value("${datasource.statementCacheSqlLimit:2048}")
+  private transient int statementCacheSqlLimit;
+
+  /** The wait for a connection at which a sizing warning is logged. */
+  @Value("${datasource.poolWaitWarningMillis:10}")
+  private transient long poolWaitWarningMillis;
+
+  /** True, if pool metrics are registered with JMX. */
+  @Value("${datasource.jmxEnabled:true}")
+  private transient boolean jmxEnabled;
+
+  /**
+   * JPA batching post processor, also counting statements when 
+   * <code>entity.statistics.enabled</code> is true. Static, as bean post
+   * processors are created before the configuration is.
+   *
+   * @param environment the environment
+   * @return the JPA batching post processor
+   */
+  @Bean
+  public static JpaBatchingPostProcessor jpaBatchingPostProcessor(
+      final Environment environment) {
+    return new JpaBatchingPostProcessor(environment.getProperty("datasource.batchSize", 
+        Integer.class, DEFAULT_BATCH_SIZE), environment.getProperty(
+            "entity.statistics.enabled", Boolean.class, false));
+  }
+
+  /**
+   * Pool metrics tracker factory.
+   *
+   * @return the pool metrics tracker factory
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public PoolMetricsTrackerFactory poolMetricsTrackerFactory() {
+    return new PoolMetricsTrackerFactory(poolWaitWarningMillis, jmxEnabled);
+  }
+
+  /**
+   * Data source.
+   *
+   * @param metricsTrackerFactory the pool metrics tracker factory
+   * @return the data source
+   */
+  @Bean(destroyMethod = "close")
+  @ConditionalOnMissingBean(DataSource.class)
+  public HikariDataSource dataSource(final PoolMetricsTrackerFactory metricsTrackerFactory) {
+    LOGGER.debug("using the following configuration: url:[{}] username:[{}] password:[********]",
+        url, username);
+
+    final HikariConfig hikariConfig = new HikariConfig();
+
+    if (StringUtils.isNotBlank(driverClassName)) {
+      hikariConfig.setDriverClassName(driverClassName);
+    }
+
+    hikariConfig.setJdbcUrl(url);
+    hikariConfig.setUsername(username);
+    hikariConfig.setPassword(password);
+    hikariConfig.setPoolName(poolName);
+    hikariConfig.setMaximumPoolSize(maximumPoolSize);
+    hikariConfig.setMinimumIdle(minimumIdle);
+    hikariConfig.setConnectionTimeout(connectionTimeout);
+    hikariConfig.setIdleTimeout(idleTimeout);
+    hikariConfig.setMaxLifetime(maxLifetime);
+    hikariConfig.setDataSourceProperties(StatementCacheProperties.forUrl(url, 
+        statementCacheSize, statementCacheSqlLimit));
+    hikariConfig.setMetricsTrackerFactory(metricsTrackerFactory);
+
+    return new HikariDataSource(hikariConfig);
+  }
+}
@@ -0,0 +1,357 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.SerializationUtils;
+
+import net.ljcomputing.entity.PersistedEntity;
+
+/**
+ * Cache of entities keyed by id, bounded in size and in time. When full, the
+ *  least recently used entity is evicted; entities older than the time to
+ *  live are dropped when next read. Entities can also be dropped by UUID.
+ *  
+ * <p>An entity is cached as a serialized snapshot, taken when it is put, 
+ *  and each read returns a new detached copy. Changes to the entity put, 
+ *  which is often managed, or to a copy read, never reach the cache or 
+ *  other callers. Lazy associations not loaded when the entity was put are
+ *  not loaded in the copies.</p>
+ *  
+ * <p>Each invalidation advances the generation of the ids it covers. A 
+ *  reader takes the {@link #generation(Long)} of an id before loading the
+ *  entity and caches it with {@link #put(PersistedEntity, long)}, which 
+ *  drops the entity if the id was invalidated meanwhile, so a load racing
+ *  a write cannot cache the state from before the write. Generations are
+ *  kept for stripes of ids, so an invalidation may also drop the put of 
+ *  another id of the same stripe.</p>
+ *
+ * @author James G. Willmore
+ * @param <T> the PersistedEntity type
+ */
+public class EntityCache<T extends PersistedEntity> {
+
+  /** The number of generation stripes, a power of two. */
+  private static final int STRIPES = 64;
+
+  /** The maximum number of entities held. */
+  private final int maximumSize;
+
+  /** The time to live in nanoseconds. */
+  private final long ttlNanos;
+
+  /** The entries, in access order. */
+  private final Map<Long, CachedEntity> entries;
+
+  /** The ids of the entries, by UUID. */
+  private final Map<String, Long> ids = new HashMap<String, Long>();
+
+  /** The invalidation generations of the id stripes. */
+  private final long[] generations = new long[STRIPES];
+
+  /** The generation of invalidations covering every id. */
+  private long epoch;
+
+  /** The hit count. */
+  private final LongAdder hits = new LongAdder();
+
+  /** The miss count. */
+  private final LongAdder misses = new LongAdder();
+
+  /** The eviction count, of entities dropped to stay within the size bound. */
+  private final LongAdder evictions = new LongAdder();
+
+  /** The expiration count, of entities dropped after their time to live. */
+  private final LongAdder expirations = new LongAdder();
+
+  /**
+   * Instantiates a new entity cache.
+   *
+   * @param maximumSize the maximum number of entities held
+   * @param ttl the time to live
+   * @param unit the time to live unit
+   */
+  public EntityCache(final int maximumSize, final long ttl, final TimeUnit unit) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("maximum size must be greater than zero");
+    }
+
+    if (ttl < 1) {
+      throw new IllegalArgumentException("time to live must be greater than zero");
+    }
+
+    this.maximumSize = maximumSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.entries = new LinkedHashMap<Long, CachedEntity>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 4436848346577934787L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Long, CachedEntity> eldest) {
+        final boolean full = size() > EntityCache.this.maximumSize;
+
+        if (full) {
+          ids.remove(eldest.getValue().uuid);
+          evictions.increment();
+        }
+
+        return full;
+      }
+    };
+  }
+
+  /**
+   * Gets a copy of the cached entity.
+   *
+   * @param id the id
+   * @return the detached copy of the entity, null if not cached or expired
+   */
+  @SuppressWarnings("unchecked")
+  public T get(final Long id) {
+    final long now = System.nanoTime();
+    CachedEntity entry;
+
+    synchronized (entries) {
+      entry = entries.get(id);
+
+      if (entry != null && now - entry.created > ttlNanos) {
+        remove(id);
+        expirations.increment();
+        entry = null;
+      }
+    }
+
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+
+    hits.increment();
+    return (T) SerializationUtils.deserialize(entry.state);
+  }
+
+  /**
+   * Gets the invalidation generation of an id, to be taken before loading 
+   * the entity to cache.
+   *
+   * @param id the id
+   * @return the generation
+   */
+  public long generation(final Long id) {
+    synchronized (entries) {
+      return epoch + generations[stripe(id)];
+    }
+  }
+
+  /**
+   * Cache a snapshot of the given entity.
+   *
+   * @param entity the entity
+   */
+  public void put(final T entity) {
+    final CachedEntity entry = newEntry(entity);
+
+    synchronized (entries) {
+      add(entity.getId(), entry);
+    }
+  }
+
+  /**
+   * Cache a snapshot of the given entity, unless its id was invalidated 
+   * since the given generation was taken.
+   *
+   * @param entity the entity
+   * @param generation the generation of the id, taken before the entity was loaded
+   * @return true, if cached
+   */
+  public boolean put(final T entity, final long generation) {
+    final CachedEntity entry = newEntry(entity);
+
+    synchronized (entries) {
+      if (epoch + generations[stripe(entity.getId())] != generation) {
+        return false;
+      }
+
+      add(entity.getId(), entry);
+      return true;
+    }
+  }
+
+  /**
+   * Drop the entity with the given id.
+   *
+   * @param id the id
+   */
+  public void invalidate(final Long id) {
+    synchronized (entries) {
+      remove(id);
+      generations[stripe(id)]++;
+    }
+  }
+
+  /**
+   * Drop the entity with the given UUID. When the UUID is not cached, its
+   * id is not known and the generation of every id is advanced.
+   *
+   * @param uuid the UUID
+   */
+  public void invalidateUuid(final String uuid) {
+    synchronized (entries) {
+      final Long id = ids.get(uuid);
+
+      if (id == null) {
+        epoch++;
+      } else {
+        remove(id);
+        generations[stripe(id)]++;
+      }
+    }
+  }
+
+  /**
+   * Drop all entities.
+   */
+  public void invalidateAll() {
+    synchronized (entries) {
+      entries.clear();
+      ids.clear();
+      epoch++;
+    }
+  }
+
+  /**
+   * Drop expired entities.
+   */
+  public void cleanUp() {
+    final long now = System.nanoTime();
+
+    synchronized (entries) {
+      final Iterator<CachedEntity> iterator = entries.values().iterator();
+
+      while (iterator.hasNext()) {
+        final CachedEntity entry = iterator.next();
+
+        if (now - entry.created > ttlNanos) {
+          iterator.remove();
+          ids.remove(entry.uuid);
+          expirations.increment();
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the number of entities held.
+   *
+   * @return the size
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Gets the cache statistics.
+   *
+   * @return the statistics
+   */
+  public EntityCacheStatistics getStatistics() {
+    return new EntityCacheStatistics(hits.sum(), misses.sum(), evictions.sum(),
+        expirations.sum(), size());
+  }
+
+  /**
+   * Snapshot an entity.
+   *
+   * @param entity the entity
+   * @return the entry
+   */
+  private CachedEntity newEntry(final T entity) {
+    return new CachedEntity(SerializationUtils.serialize(entity), entity.getUuid(),
+        System.nanoTime());
+  }
+
+  /**
+   * Add an entry and its UUID, holding the entries lock.
+   *
+   * @param id the id
+   * @param entry the entry
+   */
+  private void add(final Long id, final CachedEntity entry) {
+    remove(id);
+    entries.put(id, entry);
+    ids.put(entry.uuid, id);
+  }
+
+  /**
+   * Gets the generation stripe of an id.
+   *
+   * @param id the id
+   * @return the stripe
+   */
+  private static int stripe(final Long id) {
+    return (int) (id ^ id >>> 32) & STRIPES - 1;
+  }
+
+  /**
+   * Remove an entry and its UUID, holding the entries lock.
+   *
+   * @param id the id
+   */
+  private void remove(final Long id) {
+    final CachedEntity entry = entries.remove(id);
+
+    if (entry != null) {
+      ids.remove(entry.uuid);
+    }
+  }
+
+  /**
+   * A cached entity snapshot and the time it was cached.
+   */
+  private static final class CachedEntity {
+
+    /** The serialized entity. */
+    private final byte[] state;
+
+    /** The entity UUID. */
+    private final String uuid;
+
+    /** The time cached, in nanoseconds. */
+    private final long created;
+
+    /**
+     * Instantiates a new entry.
+     *
+     * @param state the serialized entity
+     * @param uuid the entity UUID
+     * @param created the time cached, in nanoseconds
+     */
+    private CachedEntity(final byte[] state, final String uuid, final long created) {
+      this.state = state;
+      this.uuid = uuid;
+      this.created = created;
+    }
+  }
+}
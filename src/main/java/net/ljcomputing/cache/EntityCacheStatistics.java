@@ -0,0 +1,127 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.cache;
+
+import java.io.Serializable;
+
+/**
+ * Point in time snapshot of entity cache counters.
+ *
+ * @author James G. Willmore
+ */
+public class EntityCacheStatistics implements Serializable {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -8209839404905424437L;
+
+  /** The hit count. */
+  private final long hits;
+
+  /** The miss count. */
+  private final long misses;
+
+  /** The eviction count. */
+  private final long evictions;
+
+  /** The expiration count. */
+  private final long expirations;
+
+  /** The number of entities held. */
+  private final int size;
+
+  /**
+   * Instantiates a new entity cache statistics.
+   *
+   * @param hits the hit count
+   * @param misses the miss count
+   * @param evictions the eviction count
+   * @param expirations the expiration count
+   * @param size the number of entities held
+   */
+  public EntityCacheStatistics(final long hits, final long misses, final long evictions,
+      final long expirations, final int size) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.expirations = expirations;
+    this.size = size;
+  }
+
+  /**
+   * Gets the hit count.
+   *
+   * @return the hit count
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the miss count.
+   *
+   * @return the miss count
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets the eviction count, of entities dropped to stay within the size bound.
+   *
+   * @return the eviction count
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Gets the expiration count, of entities dropped after their time to live.
+   *
+   * @return the expiration count
+   */
+  public long getExpirations() {
+    return expirations;
+  }
+
+  /**
+   * Gets the number of entities held.
+   *
+   * @return the size
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Gets the hit rate.
+   *
+   * @return the hit rate, zero when there have been no requests
+   */
+  public double getHitRate() {
+    final long requests = hits + misses;
+    return requests == 0 ? 0 : (double) hits / requests;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "EntityCacheStatistics [hits=" + hits + ", misses=" + misses + ", evictions="
+        + evictions + ", expirations=" + expirations + ", size=" + size + "]";
+  }
+}
@@ -0,0 +1,76 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.clock;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock returning a cached time, refreshed by a background thread at a fixed
+ *  resolution. Reading the time is a volatile read, which suits writers
+ *  time stamping at a high rate that can accept time stamps up to the
+ *  resolution behind.
+ *
+ * @author James G. Willmore
+ */
+public class CoarseEntityClock implements EntityClock, Closeable {
+
+  /** The scheduler refreshing the time. */
+  private final ScheduledExecutorService scheduler;
+
+  /** The cached time. */
+  private volatile long now = System.currentTimeMillis();
+
+  /**
+   * Instantiates a new coarse entity clock.
+   *
+   * @param resolutionMillis the refresh interval in milliseconds
+   */
+  public CoarseEntityClock(final long resolutionMillis) {
+    if (resolutionMillis < 1) {
+      throw new IllegalArgumentException("resolution must be greater than zero");
+    }
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "coarse-entity-clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.scheduleAtFixedRate(() -> now = System.currentTimeMillis(), resolutionMillis,
+        resolutionMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @see net.ljcomputing.clock.EntityClock#currentTimeMillis()
+   */
+  @Override
+  public long currentTimeMillis() {
+    return now;
+  }
+
+  /**
+   * Stop refreshing the time.
+   *
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+}
@@ -0,0 +1,68 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.clock;
+
+/**
+ * Holds the clock used to time stamp entities. Entities are not managed by
+ *  Spring, so the clock is set once at start up; tests may set a 
+ *  deterministic clock and restore the default afterwards.
+ *
+ * @author James G. Willmore
+ */
+public final class EntityClocks {
+
+  /** The default clock. */
+  private static final EntityClock DEFAULT = new SystemEntityClock();
+
+  /** The clock in use. */
+  private static volatile EntityClock clock = DEFAULT;
+
+  /**
+   * Instantiates a new entity clocks holder.
+   */
+  private EntityClocks() {
+  }
+
+  /**
+   * Gets the clock in use.
+   *
+   * @return the clock
+   */
+  public static EntityClock get() {
+    return clock;
+  }
+
+  /**
+   * Sets the clock to use.
+   *
+   * @param entityClock the new clock
+   */
+  public static void set(final EntityClock entityClock) {
+    if (entityClock == null) {
+      throw new IllegalArgumentException("clock is required");
+    }
+
+    clock = entityClock;
+  }
+
+  /**
+   * Restore the default, system, clock.
+   */
+  public static void reset() {
+    clock = DEFAULT;
+  }
+}
@@ -0,0 +1,144 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.datasource;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hash ring mapping keys, such as entity UUIDs, to shards. Each
+ *  shard owns a number of virtual nodes spread around the ring, and a key 
+ *  belongs to the shard owning the first virtual node at or after the hash
+ *  of the key. Adding a shard only moves the keys it takes over, about one
+ *  in every N keys, instead of rehashing them all.
+ *  
+ * <p>The ring is immutable and lookups are a binary search without 
+ *  allocation.</p>
+ *
+ * @author James G. Willmore
+ */
+public class ConsistentHashRing {
+
+  /** The default number of virtual nodes per shard. */
+  public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+  /** The FNV-1a 64 bit offset basis. */
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+  /** The FNV-1a 64 bit prime. */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /** The number of shards. */
+  private final int shards;
+
+  /** The virtual node positions, in ascending order. */
+  private final long[] positions;
+
+  /** The shard owning the virtual node at the same index. */
+  private final int[] owners;
+
+  /**
+   * Instantiates a new consistent hash ring with the default number of 
+   * virtual nodes per shard.
+   *
+   * @param shards the number of shards
+   */
+  public ConsistentHashRing(final int shards) {
+    this(shards, DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Instantiates a new consistent hash ring.
+   *
+   * @param shards the number of shards
+   * @param virtualNodes the number of virtual nodes per shard
+   */
+  public ConsistentHashRing(final int shards, final int virtualNodes) {
+    if (shards < 1 || virtualNodes < 1) {
+      throw new IllegalArgumentException("shards and virtual nodes must be greater than zero");
+    }
+
+    this.shards = shards;
+    final long[][] nodes = new long[shards * virtualNodes][];
+
+    for (int shard = 0; shard < shards; shard++) {
+      for (int node = 0; node < virtualNodes; node++) {
+        nodes[shard * virtualNodes + node] = 
+            new long[] { mix((long) shard << Integer.SIZE | node), shard };
+      }
+    }
+
+    Arrays.sort(nodes, (left, right) -> Long.compare(left[0], right[0]));
+    positions = new long[nodes.length];
+    owners = new int[nodes.length];
+
+    for (int i = 0; i < nodes.length; i++) {
+      positions[i] = nodes[i][0];
+      owners[i] = (int) nodes[i][1];
+    }
+  }
+
+  /**
+   * Gets the number of shards.
+   *
+   * @return the number of shards
+   */
+  public int getShards() {
+    return shards;
+  }
+
+  /**
+   * Gets the shard of a key.
+   *
+   * @param key the key
+   * @return the shard, from zero to the number of shards less one
+   */
+  public int shardOf(final String key) {
+    final int index = Arrays.binarySearch(positions, hash(key));
+    final int node = index >= 0 ? index : -index - 1;
+    return owners[node == positions.length ? 0 : node];
+  }
+
+  /**
+   * Hash a key, with FNV-1a over its characters and a final mix spreading 
+   * the bits over the ring.
+   *
+   * @param key the key
+   * @return the hash
+   */
+  static long hash(final String key) {
+    long hash = FNV_OFFSET;
+
+    for (int i = 0; i < key.length(); i++) {
+      hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+    }
+
+    return mix(hash);
+  }
+
+  /**
+   * The 64 bit finalizer of MurmurHash3.
+   *
+   * @param value the value
+   * @return the mixed value
+   */
+  private static long mix(final long value) {
+    long mixed = value;
+    mixed = (mixed ^ mixed >>> 33) * 0xff51afd7ed558ccdL;
+    mixed = (mixed ^ mixed >>> 33) * 0xc4ceb9fe1a85ec53L;
+    return mixed ^ mixed >>> 33;
+  }
+}
@@ -0,0 +1,250 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.datasource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source routing read only transactions to replicas, in turn, and 
+ *  everything else to the primary.
+ *  
+ * <p>The route is chosen when a connection is obtained, so the data source 
+ *  must be wrapped in a {@link LazyConnectionDataSourceProxy}, as done by
+ *  {@link #create(DataSource, List, long)}: transaction managers obtain the
+ *  connection as the transaction begins, before it is marked read only.</p>
+ *  
+ * <p>Replicas lag the primary. After a read write transaction commits, the
+ *  thread is pinned to the primary for the pin window, so it reads its own
+ *  writes; a thread can also be pinned explicitly with 
+ *  {@link #pinToPrimary(long, TimeUnit)}.</p>
+ *  
+ * <p>The route taken by the current transaction is held for its duration,
+ *  see {@link #getCurrentRoute()}, so that callers can keep data read from
+ *  a lagging replica out of shared caches.</p>
+ *
+ * @author James G. Willmore
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  /** The lookup key of the primary. */
+  public static final String PRIMARY = "primary";
+
+  /** The lookup key prefix of the replicas, followed by the replica index. */
+  public static final String REPLICA = "replica-";
+
+  /** The time until which the thread reads from the primary, in nanoseconds. */
+  private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<Long>();
+
+  /** The key of the route bound to the current transaction. */
+  private static final Object ROUTE = new Object();
+
+  /** The lookup keys of the replicas. */
+  private final String[] replicas;
+
+  /** The next replica to use. */
+  private final AtomicInteger next = new AtomicInteger();
+
+  /** The time a thread is pinned to the primary after a write, in nanoseconds. */
+  private final long pinWindowNanos;
+
+  /**
+   * Instantiates a new read write routing data source.
+   *
+   * @param primary the primary data source
+   * @param replicas the replica data sources, may be empty
+   * @param pinWindowMillis the time a thread reads from the primary after
+   *    committing a write, in milliseconds; zero not to pin
+   */
+  public ReadWriteRoutingDataSource(final DataSource primary, final List<DataSource> replicas,
+      final long pinWindowMillis) {
+    super();
+    final Map<Object, Object> targets = new HashMap<Object, Object>();
+    final List<String> keys = new ArrayList<String>();
+    targets.put(PRIMARY, primary);
+
+    for (int i = 0; i < replicas.size(); i++) {
+      targets.put(REPLICA + i, replicas.get(i));
+      keys.add(REPLICA + i);
+    }
+
+    this.replicas = keys.toArray(new String[keys.size()]);
+    this.pinWindowNanos = TimeUnit.MILLISECONDS.toNanos(pinWindowMillis);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+  }
+
+  /**
+   * Create a read write routing data source, wrapped so that connections 
+   * are obtained lazily, once the transaction is marked read only or not.
+   *
+   * @param primary the primary data source
+   * @param replicas the replica data sources, may be empty
+   * @param pinWindowMillis the time a thread reads from the primary after
+   *    committing a write, in milliseconds; zero not to pin
+   * @return the data source
+   */
+  public static DataSource create(final DataSource primary, final List<DataSource> replicas,
+      final long pinWindowMillis) {
+    final ReadWriteRoutingDataSource routing = 
+        new ReadWriteRoutingDataSource(primary, replicas, pinWindowMillis);
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+
+  /**
+   * Pin the current thread to the primary.
+   *
+   * @param duration the duration
+   * @param unit the unit of the duration
+   */
+  public static void pinToPrimary(final long duration, final TimeUnit unit) {
+    final long until = System.nanoTime() + unit.toNanos(duration);
+    final Long pinned = PINNED_UNTIL.get();
+
+    if (pinned == null || until - pinned > 0) {
+      PINNED_UNTIL.set(until);
+    }
+  }
+
+  /**
+   * Unpin the current thread from the primary.
+   */
+  public static void unpin() {
+    PINNED_UNTIL.remove();
+  }
+
+  /**
+   * Checks if the current thread is pinned to the primary.
+   *
+   * @return true, if pinned
+   */
+  public static boolean isPinnedToPrimary() {
+    final Long pinned = PINNED_UNTIL.get();
+
+    if (pinned == null) {
+      return false;
+    }
+
+    if (pinned - System.nanoTime() > 0) {
+      return true;
+    }
+
+    PINNED_UNTIL.remove();
+    return false;
+  }
+
+  /**
+   * Gets the lookup key of the data source the current transaction was 
+   * routed to.
+   *
+   * @return the lookup key, null outside of a transaction or before the
+   *    transaction obtained its connection
+   */
+  public static String getCurrentRoute() {
+    return (String) TransactionSynchronizationManager.getResource(ROUTE);
+  }
+
+  /**
+   * Checks if the current transaction reads from a replica.
+   *
+   * @return true, if routed to a replica
+   */
+  public static boolean isRoutedToReplica() {
+    final String route = getCurrentRoute();
+    return route != null && route.startsWith(REPLICA);
+  }
+
+  /**
+   * @see org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource
+   *    #determineCurrentLookupKey()
+   */
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      pinAfterCommit();
+      return bindRoute(PRIMARY);
+    }
+
+    if (replicas.length == 0 || isPinnedToPrimary()) {
+      return bindRoute(PRIMARY);
+    }
+
+    return bindRoute(replicas[Math.floorMod(next.getAndIncrement(), replicas.length)]);
+  }
+
+  /**
+   * Bind the route to the current transaction, if any, until it completes.
+   * The route is unbound while the transaction is suspended.
+   *
+   * @param route the lookup key routed to
+   * @return the lookup key
+   */
+  private static String bindRoute(final String route) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()
+        && !TransactionSynchronizationManager.hasResource(ROUTE)) {
+      TransactionSynchronizationManager.bindResource(ROUTE, route);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void suspend() {
+              TransactionSynchronizationManager.unbindResourceIfPossible(ROUTE);
+            }
+
+            @Override
+            public void resume() {
+              TransactionSynchronizationManager.bindResource(ROUTE, route);
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(ROUTE);
+            }
+          });
+    }
+
+    return route;
+  }
+
+  /**
+   * Pin the thread to the primary once the current read write transaction, 
+   * if any, commits.
+   */
+  private void pinAfterCommit() {
+    if (pinWindowNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              pinToPrimary(pinWindowNanos, TimeUnit.NANOSECONDS);
+            }
+          });
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on, used by 
+ *  {@link ShardRoutingDataSource} to choose the data source and by 
+ *  {@link net.ljcomputing.id.ShardedIdGenerator} to place the shard in new
+ *  ids. The shard must be set before a transaction obtains its connection;
+ *  both fail when it is not, rather than fall back to a shard.
+ *
+ * @author James G. Willmore
+ */
+public final class ShardContext {
+
+  /** The shard of the current thread, null when not set. */
+  private static final ThreadLocal<Integer> SHARD = new ThreadLocal<Integer>();
+
+  /**
+   * Instantiates a new shard context.
+   */
+  private ShardContext() {
+  }
+
+  /**
+   * Gets the shard of the current thread.
+   *
+   * @return the shard, null when not set
+   */
+  public static Integer get() {
+    return SHARD.get();
+  }
+
+  /**
+   * Gets the shard of the current thread, which must be set.
+   *
+   * @return the shard
+   * @throws IllegalStateException when no shard is set
+   */
+  public static int require() {
+    final Integer shard = SHARD.get();
+
+    if (shard == null) {
+      throw new IllegalStateException("no shard set on the current thread");
+    }
+
+    return shard;
+  }
+
+  /**
+   * Do work on a shard, restoring the previous shard of the thread after.
+   *
+   * @param <V> the result type
+   * @param shard the shard
+   * @param work the work
+   * @return the result of the work
+   */
+  public static <V> V call(final int shard, final Supplier<V> work) {
+    final Integer previous = SHARD.get();
+    SHARD.set(shard);
+
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        SHARD.remove();
+      } else {
+        SHARD.set(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Data source routing connections to the data source of the shard set in 
+ *  the {@link ShardContext}. Asking for a connection with no shard set 
+ *  throws an {@link IllegalStateException}, so work is never silently sent
+ *  to the wrong shard; the persistence unit, which reads the database 
+ *  metadata as it starts, is started within <code>ShardContext.call</code>.
+ *  Every shard holds the same schema, which must be created or migrated on
+ *  each shard.
+ *
+ * @author James G. Willmore
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+  /** The number of shards. */
+  private final int shards;
+
+  /**
+   * Instantiates a new shard routing data source.
+   *
+   * @param shardDataSources the data sources of the shards, in shard order
+   */
+  public ShardRoutingDataSource(final List<DataSource> shardDataSources) {
+    super();
+
+    if (shardDataSources.isEmpty()) {
+      throw new IllegalArgumentException("at least one shard is required");
+    }
+
+    final Map<Object, Object> targets = new HashMap<Object, Object>();
+
+    for (int shard = 0; shard < shardDataSources.size(); shard++) {
+      targets.put(shard, shardDataSources.get(shard));
+    }
+
+    this.shards = shardDataSources.size();
+    setTargetDataSources(targets);
+    setLenientFallback(false);
+  }
+
+  /**
+   * Gets the number of shards.
+   *
+   * @return the number of shards
+   */
+  public int getShards() {
+    return shards;
+  }
+
+  /**
+   * @see org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource
+   *    #determineCurrentLookupKey()
+   */
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.require();
+  }
+}
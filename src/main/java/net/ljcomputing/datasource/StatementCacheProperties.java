@@ -0,0 +1,80 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.datasource;
+
+import java.util.Properties;
+
+/**
+ * Driver specific connection properties enabling prepared statement caching
+ *  and batch rewriting. Statement cache settings are not portable: a key 
+ *  one driver recognizes is silently ignored by another, so the properties
+ *  are chosen by the JDBC URL.
+ *  
+ * <p>MySQL caches prepared statements on the client and server, and rewrites
+ *  batched inserts into multi-row inserts. PostgreSQL caches server prepared
+ *  statements per connection and rewrites batched inserts. Oracle caches 
+ *  statements implicitly. Embedded Derby caches compiled statements itself
+ *  and needs nothing.
+ *
+ * @author James G. Willmore
+ */
+public final class StatementCacheProperties {
+
+  /** The MySQL URL prefix. */
+  private static final String MYSQL = "jdbc:mysql:";
+
+  /** The PostgreSQL URL prefix. */
+  private static final String POSTGRESQL = "jdbc:postgresql:";
+
+  /** The Oracle URL prefix. */
+  private static final String ORACLE = "jdbc:oracle:";
+
+  /**
+   * Instantiates a new statement cache properties.
+   */
+  private StatementCacheProperties() {
+  }
+
+  /**
+   * Gets the statement cache properties of the driver of a JDBC URL. The 
+   * properties are empty for drivers needing none.
+   *
+   * @param url the JDBC URL
+   * @param cacheSize the number of statements cached per connection
+   * @param sqlLimit the length of the longest statement cached (MySQL)
+   * @return the driver properties
+   */
+  public static Properties forUrl(final String url, final int cacheSize, final int sqlLimit) {
+    final Properties properties = new Properties();
+
+    if (url.startsWith(MYSQL)) {
+      properties.setProperty("cachePrepStmts", "true");
+      properties.setProperty("prepStmtCacheSize", String.valueOf(cacheSize));
+      properties.setProperty("prepStmtCacheSqlLimit", String.valueOf(sqlLimit));
+      properties.setProperty("useServerPrepStmts", "true");
+      properties.setProperty("rewriteBatchedStatements", "true");
+    } else if (url.startsWith(POSTGRESQL)) {
+      properties.setProperty("prepareThreshold", "1");
+      properties.setProperty("preparedStatementCacheQueries", String.valueOf(cacheSize));
+      properties.setProperty("reWriteBatchedInserts", "true");
+    } else if (url.startsWith(ORACLE)) {
+      properties.setProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(cacheSize));
+    }
+
+    return properties;
+  }
+}
@@ -0,0 +1,140 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.entity;
+
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.EntityListeners;
+import javax.persistence.MappedSuperclass;
+
+import net.ljcomputing.clock.EntityClocks;
+import net.ljcomputing.id.UuidGenerators;
+
+/**
+ * Abstract implementation of the state shared by all persisted entity classes.
+ *  The id, and how it is generated, is left to the subclasses. The UUID and
+ *  time stamps are set by {@link PersistedEntityListener}.
+ *  
+ * <p>Indexes cannot be declared on a mapped superclass. Entities read by
+ *  modified time stamp should declare an index on <code>(MODIFIED_TS, ID)</code>
+ *  in their <code>@Table</code> annotation.</p>
+ * 
+ * @author James G. Willmore
+ *
+ */
+@MappedSuperclass
+@EntityListeners(PersistedEntityListener.class)
+public abstract class AbstractBasePersistedEntity implements PersistedEntity {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 2650264964009386262L;
+
+  /** The uuid, unique so lookups by uuid are indexed. */
+  @Column(name = "UUID", nullable = false, unique = true, length = 36)
+  private String uuid;
+
+  /** The created time stamp. */
+  @Column(name = "CREATED_TS", nullable = false)
+  private Long createdTs;
+
+  /** The modified time stamp. */
+  @Column(name = "MODIFIED_TS", nullable = false)
+  private Long modifiedTs;
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#getUuid()
+   */
+  @Override
+  public String getUuid() {
+    return uuid;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#setUuid(java.lang.String)
+   */
+  @Override
+  public void setUuid(final String uuid) {
+    this.uuid = uuid;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#createUuid()
+   */
+  @Override
+  public void createUuid() {
+    if (uuid == null) {
+      final UUID newUuid = UuidGenerators.get().generate();
+      uuid = newUuid.toString(); //NOPMD
+    }
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#getCreatedTs()
+   */
+  @Override
+  public Long getCreatedTs() {
+    return createdTs;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#setCreatedTs(java.lang.Long)
+   */
+  @Override
+  public void setCreatedTs(final Long createdTs) {
+    this.createdTs = createdTs;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#getModifiedTs()
+   */
+  @Override
+  public Long getModifiedTs() {
+    return modifiedTs;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#setModifiedTs(java.lang.Long)
+   */
+  @Override
+  public void setModifiedTs(final Long modifiedTs) {
+    this.modifiedTs = modifiedTs;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.PersistedEntity#modifiedAt()
+   */
+  @Override
+  public void modifiedAt() {
+    final Long now = EntityClocks.get().currentTimeMillis();
+
+    if (createdTs == null) {
+      createdTs = now;
+    }
+
+    modifiedTs = now;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "AbstractPersistedEntity [uuid=" + uuid + ", id=" + getId() + ", createdTs="
+        + createdTs + ", modifiedTs=" + modifiedTs + "]";
+  }
+}
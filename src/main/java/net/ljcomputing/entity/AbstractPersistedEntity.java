@@ -16,9 +16,6 @@
 
 package net.ljcomputing.entity;
 
-import java.util.Date;
-import java.util.UUID;
-
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -26,13 +23,14 @@ import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 
 /**
- * Abstract implementation of a persisted entity class.
+ * Abstract implementation of a persisted entity class. The id is generated
+ *  by the database identity column.
  * 
  * @author James G. Willmore
  *
  */
 @MappedSuperclass
-public abstract class AbstractPersistedEntity implements PersistedEntity {
+public abstract class AbstractPersistedEntity extends AbstractBasePersistedEntity {
 
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = -5596912472711861850L;
@@ -43,18 +41,6 @@ public abstract class AbstractPersistedEntity implements PersistedEntity {
   @Column(name = "ID")
   private Long id;
 
-  /** The uuid. */
-  @Column(name = "UUID", nullable = false)
-  private String uuid;
-
-  /** The created time stamp. */
-  @Column(name = "CREATED_TS", nullable = false)
-  private Long createdTs;
-
-  /** The modified time stamp. */
-  @Column(name = "MODIFIED_TS", nullable = false)
-  private Long modifiedTs;
-
   /**
    * Gets the id.
    *
@@ -74,84 +60,4 @@ public abstract class AbstractPersistedEntity implements PersistedEntity {
   public void setId(final Long id) { //NOPMD
     this.id = id;
   }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#getUuid()
-   */
-  @Override
-  public String getUuid() {
-    return uuid;
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#setUuid(java.lang.String)
-   */
-  @Override
-  public void setUuid(final String uuid) {
-    this.uuid = uuid;
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#createUuid()
-   */
-  @Override
-  public void createUuid() {
-    if (uuid == null) {
-      final UUID newUuid = UUID.randomUUID();
-      uuid = newUuid.toString(); //NOPMD
-    }
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#getCreatedTs()
-   */
-  @Override
-  public Long getCreatedTs() {
-    return createdTs;
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#setCreatedTs(java.lang.Long)
-   */
-  @Override
-  public void setCreatedTs(final Long createdTs) {
-    this.createdTs = createdTs;
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#getModifiedTs()
-   */
-  @Override
-  public Long getModifiedTs() {
-    return modifiedTs;
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#setModifiedTs(java.lang.Long)
-   */
-  @Override
-  public void setModifiedTs(final Long modifiedTs) {
-    this.modifiedTs = modifiedTs;
-  }
-
-  /**
-   * @see net.ljcomputing.entity.PersistedEntity#modifiedAt()
-   */
-  @Override
-  public void modifiedAt() {
-    if (createdTs == null) {
-      createdTs = new Date().getTime();
-    }
-
-    modifiedTs = new Date().getTime();
-  }
-
-  /**
-   * @see java.lang.Object#toString()
-   */
-  @Override
-  public String toString() {
-    return "AbstractPersistedEntity [uuid=" + uuid + ", id=" + id + ", createdTs=" + createdTs
-        + ", modifiedTs=" + modifiedTs + "]";
-  }
 }
@@ -0,0 +1,76 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.entity;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import net.ljcomputing.id.PooledSequenceGenerator;
+
+/**
+ * Abstract implementation of a persisted entity class. The id is allocated
+ *  in blocks from a sequence (a table where sequences are not supported) 
+ *  named after the entity, <code>ENTITY_SEQ</code> (for example 
+ *  <code>PooledPerson_SEQ</code>), so inserts do not need a round trip each
+ *  to read back the generated key and can be sent as JDBC batches.
+ * 
+ * @author James G. Willmore
+ * @see net.ljcomputing.id.PooledSequenceGenerator
+ */
+@MappedSuperclass
+public abstract class AbstractPooledPersistedEntity extends AbstractBasePersistedEntity {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -3307853004811404553L;
+
+  /** The id. */
+  @Id
+  @GeneratedValue(generator = PooledSequenceGenerator.NAME)
+  @GenericGenerator(name = PooledSequenceGenerator.NAME,
+      strategy = "net.ljcomputing.id.PooledSequenceGenerator",
+      parameters = {
+          @Parameter(name = SequenceStyleGenerator.CONFIG_PREFER_SEQUENCE_PER_ENTITY,
+              value = "true") })
+  @Column(name = "ID")
+  private Long id;
+
+  /**
+   * Gets the id.
+   *
+   * @return the id
+   */
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets the id.
+   *
+   * @param id the new id
+   */
+  @Override
+  public void setId(final Long id) { //NOPMD
+    this.id = id;
+  }
+}
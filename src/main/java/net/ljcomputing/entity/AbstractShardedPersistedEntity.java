@@ -0,0 +1,70 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.entity;
+
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import net.ljcomputing.id.ShardedIdGenerator;
+
+/**
+ * Abstract implementation of a persisted entity class stored on one of
+ *  several shards. The id is generated in memory, unique across shards, and
+ *  holds the shard the entity is stored on.
+ * 
+ * @author James G. Willmore
+ * @see net.ljcomputing.id.ShardedIdGenerator
+ * @see net.ljcomputing.service.ShardedEntityService
+ */
+@MappedSuperclass
+public abstract class AbstractShardedPersistedEntity extends AbstractBasePersistedEntity {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 6036480961392297375L;
+
+  /** The id. */
+  @Id
+  @GeneratedValue(generator = ShardedIdGenerator.NAME)
+  @GenericGenerator(name = ShardedIdGenerator.NAME,
+      strategy = "net.ljcomputing.id.ShardedIdGenerator")
+  @Column(name = "ID")
+  private Long id;
+
+  /**
+   * Gets the id.
+   *
+   * @return the id
+   */
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Sets the id.
+   *
+   * @param id the new id
+   */
+  @Override
+  public void setId(final Long id) { //NOPMD
+    this.id = id;
+  }
+}
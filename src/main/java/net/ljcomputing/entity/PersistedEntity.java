@@ -42,7 +42,8 @@ public interface PersistedEntity extends Serializable {
   void setUuid(String uuid);
 
   /**
-   * Creates the UUID when needed.
+   * Creates the UUID when needed, using the generator held by
+   * {@link net.ljcomputing.id.UuidGenerators}.
    */
   void createUuid();
 
@@ -89,7 +90,9 @@ public interface PersistedEntity extends Serializable {
   void setModifiedTs(Long modifiedTs);
 
   /**
-   * Update the modified time stamp with the current date.
+   * Update the modified time stamp, and the created time stamp when not yet
+   * set, with the current time of the clock held by
+   * {@link net.ljcomputing.clock.EntityClocks}.
    */
   void modifiedAt();
 }
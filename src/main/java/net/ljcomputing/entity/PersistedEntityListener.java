@@ -0,0 +1,52 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.entity;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * JPA entity listener that sets the UUID and time stamps of an entity before
+ *  it is inserted or updated. The callbacks are invoked by the persistence
+ *  provider, so every write path is covered: repository saves, bulk saves,
+ *  direct use of the entity manager and cascades.
+ *
+ * @author James G. Willmore
+ */
+public class PersistedEntityListener {
+
+  /**
+   * Set the UUID and time stamps prior to insert.
+   *
+   * @param entity the entity
+   */
+  @PrePersist
+  public void prePersist(final PersistedEntity entity) {
+    entity.createUuid();
+    entity.modifiedAt();
+  }
+
+  /**
+   * Set the modified time stamp prior to update.
+   *
+   * @param entity the entity
+   */
+  @PreUpdate
+  public void preUpdate(final PersistedEntity entity) {
+    entity.modifiedAt();
+  }
+}
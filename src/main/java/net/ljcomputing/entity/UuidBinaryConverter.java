@@ -0,0 +1,75 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.entity;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Converts the string form of a UUID to its 16 byte form, and back.
+ *  Storing the UUID as 16 bytes instead of 36 characters shrinks the row
+ *  and the UUID index, and makes comparisons cheaper.
+ *  
+ * <p>The conversion is opt-in per entity. For example:</p>
+ * <pre>
+ * &#64;Entity
+ * &#64;Convert(attributeName = "uuid", converter = UuidBinaryConverter.class)
+ * &#64;AttributeOverride(name = "uuid", column = &#64;Column(name = "UUID", 
+ *     length = UuidBinaryConverter.LENGTH, nullable = false, unique = true))
+ * public class Person extends AbstractPersistedEntity { ... }
+ * </pre>
+ *
+ * @author James G. Willmore
+ */
+@Converter
+public class UuidBinaryConverter implements AttributeConverter<String, byte[]> {
+
+  /** The length of a UUID in bytes. */
+  public static final int LENGTH = 16;
+
+  /**
+   * @see javax.persistence.AttributeConverter#convertToDatabaseColumn(java.lang.Object)
+   */
+  @Override
+  public byte[] convertToDatabaseColumn(final String attribute) {
+    if (attribute == null) {
+      return null;
+    }
+
+    final UUID uuid = UUID.fromString(attribute);
+
+    return ByteBuffer.allocate(LENGTH).putLong(uuid.getMostSignificantBits())
+        .putLong(uuid.getLeastSignificantBits()).array();
+  }
+
+  /**
+   * @see javax.persistence.AttributeConverter#convertToEntityAttribute(java.lang.Object)
+   */
+  @Override
+  public String convertToEntityAttribute(final byte[] dbData) {
+    if (dbData == null) {
+      return null;
+    }
+
+    final ByteBuffer buffer = ByteBuffer.wrap(dbData);
+
+    return new UUID(buffer.getLong(), buffer.getLong()).toString();
+  }
+}
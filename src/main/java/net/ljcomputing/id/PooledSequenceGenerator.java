@@ -0,0 +1,96 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.id;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Sequence generator using the pooled optimizer. Ids are handed out from
+ *  memory and the sequence is only read once per allocation block.
+ *  
+ * <p>With a sequence per entity, the sequence is named after the entity 
+ *  name, <code>ENTITY_SEQ</code>, not after its table.</p>
+ *  
+ * <p>The allocation size is read from the Hibernate setting 
+ *  <code>net.ljcomputing.id.allocation_size</code>, and may be overridden
+ *  for a single entity with <code>net.ljcomputing.id.allocation_size.TABLE</code>,
+ *  keyed by the name of the entity table rather than the sequence.
+ *  Changing the allocation size of an existing sequence requires the 
+ *  sequence increment to be changed in the database as well.</p>
+ *
+ * @author James G. Willmore
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+  /** The generator name. */
+  public static final String NAME = "pooled";
+
+  /** The allocation size setting. */
+  public static final String ALLOCATION_SIZE = "net.ljcomputing.id.allocation_size";
+
+  /** The default allocation size. */
+  public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+  /** The optimizer used. */
+  private static final String OPTIMIZER = "pooled";
+
+  /**
+   * @see org.hibernate.id.enhanced.SequenceStyleGenerator#configure(
+   *    org.hibernate.type.Type, java.util.Properties, org.hibernate.service.ServiceRegistry)
+   */
+  @Override
+  public void configure(final Type type, final Properties params,
+      final ServiceRegistry serviceRegistry) throws MappingException {
+    final Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class)
+        .getSettings();
+
+    if (!params.containsKey(INCREMENT_PARAM)) {
+      final String table = params.getProperty(PersistentIdentifierGenerator.TABLE);
+      params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize(settings, table)));
+    }
+
+    if (!params.containsKey(OPT_PARAM)) {
+      params.setProperty(OPT_PARAM, OPTIMIZER);
+    }
+
+    super.configure(type, params, serviceRegistry);
+  }
+
+  /**
+   * Gets the allocation size for the given table.
+   *
+   * @param settings the Hibernate settings
+   * @param table the table
+   * @return the allocation size
+   */
+  private static int allocationSize(final Map<?, ?> settings, final String table) {
+    final int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE, settings,
+        DEFAULT_ALLOCATION_SIZE);
+
+    return table == null ? allocationSize
+        : ConfigurationHelper.getInt(ALLOCATION_SIZE + "." + table, settings, allocationSize);
+  }
+}
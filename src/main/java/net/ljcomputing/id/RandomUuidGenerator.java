@@ -0,0 +1,36 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.id;
+
+import java.util.UUID;
+
+/**
+ * Generates random (version 4) UUIDs from a secure random number generator.
+ *  Use where UUIDs must not reveal when they were created.
+ *
+ * @author James G. Willmore
+ */
+public class RandomUuidGenerator implements UuidGenerator {
+
+  /**
+   * @see net.ljcomputing.id.UuidGenerator#generate()
+   */
+  @Override
+  public UUID generate() {
+    return UUID.randomUUID();
+  }
+}
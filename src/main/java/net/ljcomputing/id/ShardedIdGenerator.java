@@ -0,0 +1,173 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.id;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import net.ljcomputing.datasource.ShardContext;
+
+/**
+ * Generates ids unique across shards without a round trip to the database.
+ *  From the most significant bit, an id holds a zero sign bit, 41 bits of 
+ *  milliseconds since 2016-01-01 (good until 2085), 8 bits of shard, 6 bits
+ *  of node and an 8 bit counter. The shard is read from the 
+ *  {@link ShardContext}, where it must be set, so an entity can be found from its id alone with 
+ *  {@link #shardOf(long)}.
+ *  
+ * <p>The node tells apart application instances writing to the same shard 
+ *  and is read from the Hibernate setting <code>net.ljcomputing.id.node</code>
+ *  (default 0); each instance must have its own. As in
+ *  {@link TimeOrderedUuidGenerator}, the time and counter advance together
+ *  with a compare and set, and the counter carries into the time when more
+ *  than 256 ids are generated in a millisecond.</p>
+ *
+ * @author James G. Willmore
+ */
+public class ShardedIdGenerator implements IdentifierGenerator, Configurable {
+
+  /** The generator name. */
+  public static final String NAME = "sharded";
+
+  /** The node setting. */
+  public static final String NODE = "net.ljcomputing.id.node";
+
+  /** The epoch of the time bits, 2016-01-01T00:00:00Z. */
+  public static final long EPOCH = 1451606400000L;
+
+  /** The number of counter bits. */
+  private static final int COUNTER_BITS = 8;
+
+  /** The number of node bits. */
+  private static final int NODE_BITS = 6;
+
+  /** The number of shard bits. */
+  private static final int SHARD_BITS = 8;
+
+  /** The maximum number of shards. */
+  public static final int MAXIMUM_SHARDS = 1 << SHARD_BITS;
+
+  /** The maximum number of nodes. */
+  public static final int MAXIMUM_NODES = 1 << NODE_BITS;
+
+  /** The number of bits below the shard. */
+  private static final int SHARD_SHIFT = NODE_BITS + COUNTER_BITS;
+
+  /** The number of bits below the time. */
+  private static final int TIME_SHIFT = SHARD_SHIFT + SHARD_BITS;
+
+  /** The counter mask. */
+  private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+  /** The last time and counter handed out. */
+  private final AtomicLong last = new AtomicLong();
+
+  /** The node. */
+  private long node;
+
+  /**
+   * @see org.hibernate.id.Configurable#configure(org.hibernate.type.Type, 
+   *    java.util.Properties, org.hibernate.service.ServiceRegistry)
+   */
+  @Override
+  public void configure(final Type type, final Properties params,
+      final ServiceRegistry serviceRegistry) throws MappingException {
+    final Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class)
+        .getSettings();
+    node = ConfigurationHelper.getInt(NODE, settings, 0);
+
+    if (node < 0 || node >= MAXIMUM_NODES) {
+      throw new MappingException(NODE + " must be between 0 and " + (MAXIMUM_NODES - 1));
+    }
+  }
+
+  /**
+   * @see org.hibernate.id.IdentifierGenerator#generate(
+   *    org.hibernate.engine.spi.SessionImplementor, java.lang.Object)
+   */
+  @Override
+  public Serializable generate(final SessionImplementor session, final Object object)
+      throws HibernateException {
+    return id(ShardContext.require());
+  }
+
+  /**
+   * Generate an id on the given shard.
+   *
+   * @param shard the shard
+   * @return the id
+   */
+  public long id(final int shard) {
+    if (shard < 0 || shard >= MAXIMUM_SHARDS) {
+      throw new HibernateException("shard must be between 0 and " + (MAXIMUM_SHARDS - 1));
+    }
+
+    final long timeAndCounter = next((System.currentTimeMillis() - EPOCH) << COUNTER_BITS);
+    return (timeAndCounter >>> COUNTER_BITS) << TIME_SHIFT | (long) shard << SHARD_SHIFT 
+        | node << COUNTER_BITS | timeAndCounter & COUNTER_MASK;
+  }
+
+  /**
+   * Gets the shard of an id.
+   *
+   * @param id the id
+   * @return the shard
+   */
+  public static int shardOf(final long id) {
+    return (int) (id >>> SHARD_SHIFT) & (MAXIMUM_SHARDS - 1);
+  }
+
+  /**
+   * Gets the time an id was generated.
+   *
+   * @param id the id
+   * @return the time in milliseconds since the Unix epoch
+   */
+  public static long timeOf(final long id) {
+    return (id >>> TIME_SHIFT) + EPOCH;
+  }
+
+  /**
+   * Advance the time and counter, never moving backwards.
+   *
+   * @param now the current time shifted above the counter
+   * @return the time and counter to use
+   */
+  private long next(final long now) {
+    long previous;
+    long next;
+
+    do {
+      previous = last.get();
+      next = Math.max(previous + 1, now);
+    } while (!last.compareAndSet(previous, next));
+
+    return next;
+  }
+}
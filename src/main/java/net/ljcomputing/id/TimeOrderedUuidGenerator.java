@@ -0,0 +1,113 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ljcomputing.clock.EntityClock;
+import net.ljcomputing.clock.SystemEntityClock;
+
+/**
+ * Generates time ordered (version 7) UUIDs. The most significant bits hold
+ *  the creation time in milliseconds followed by a 12 bit counter, so new 
+ *  UUIDs sort after older ones and inserts append to the right edge of the
+ *  UUID index. The remaining bits are random.
+ *  
+ * <p>The time and counter are advanced together with a compare and set, so
+ *  UUIDs are strictly increasing across threads without locking. When more
+ *  than 4096 UUIDs are generated in a millisecond the counter carries into
+ *  the time, which runs ahead of the clock until the clock catches up.
+ *  Random bits come from the thread local generator rather than the shared
+ *  secure random used by {@link java.util.UUID#randomUUID()}.</p>
+ *
+ * @author James G. Willmore
+ */
+public class TimeOrderedUuidGenerator implements UuidGenerator {
+
+  /** The number of counter bits. */
+  private static final int COUNTER_BITS = 12;
+
+  /** The counter mask. */
+  private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+  /** The version bits, placed above the counter. */
+  private static final long VERSION = 0x7L << COUNTER_BITS;
+
+  /** The number of bits above the time in the most significant bits. */
+  private static final int TIME_SHIFT = 16;
+
+  /** The mask of the random bits in the least significant bits. */
+  private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+  /** The IETF variant bits. */
+  private static final long VARIANT = 0x8000000000000000L;
+
+  /** The last time and counter handed out. */
+  private final AtomicLong last = new AtomicLong();
+
+  /** The clock the time is read from. */
+  private final EntityClock clock;
+
+  /**
+   * Instantiates a new time ordered UUID generator, reading the system time.
+   */
+  public TimeOrderedUuidGenerator() {
+    this(new SystemEntityClock());
+  }
+
+  /**
+   * Instantiates a new time ordered UUID generator.
+   *
+   * @param clock the clock the time is read from
+   */
+  public TimeOrderedUuidGenerator(final EntityClock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * @see net.ljcomputing.id.UuidGenerator#generate()
+   */
+  @Override
+  public UUID generate() {
+    final long timeAndCounter = next(clock.currentTimeMillis() << COUNTER_BITS);
+    final long mostSigBits = (timeAndCounter >>> COUNTER_BITS) << TIME_SHIFT | VERSION
+        | timeAndCounter & COUNTER_MASK;
+    final long leastSigBits = ThreadLocalRandom.current().nextLong() & RANDOM_MASK | VARIANT;
+
+    return new UUID(mostSigBits, leastSigBits);
+  }
+
+  /**
+   * Advance the time and counter, never moving backwards.
+   *
+   * @param now the current time shifted above the counter
+   * @return the time and counter to use
+   */
+  private long next(final long now) {
+    long previous;
+    long next;
+
+    do {
+      previous = last.get();
+      next = Math.max(previous + 1, now);
+    } while (!last.compareAndSet(previous, next));
+
+    return next;
+  }
+}
@@ -0,0 +1,58 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.id;
+
+/**
+ * Holds the UUID generator used by entities. Entities are not managed by
+ *  Spring, so the generator is set once at start up, before entities are
+ *  created.
+ *
+ * @author James G. Willmore
+ */
+public final class UuidGenerators {
+
+  /** The generator in use. */
+  private static volatile UuidGenerator generator = new RandomUuidGenerator();
+
+  /**
+   * Instantiates a new UUID generators holder.
+   */
+  private UuidGenerators() {
+  }
+
+  /**
+   * Gets the generator in use.
+   *
+   * @return the generator
+   */
+  public static UuidGenerator get() {
+    return generator;
+  }
+
+  /**
+   * Sets the generator to use.
+   *
+   * @param uuidGenerator the new generator
+   */
+  public static void set(final UuidGenerator uuidGenerator) {
+    if (uuidGenerator == null) {
+      throw new IllegalArgumentException("generator is required");
+    }
+
+    generator = uuidGenerator;
+  }
+}
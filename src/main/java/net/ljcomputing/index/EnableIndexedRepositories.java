@@ -0,0 +1,75 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.index;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.context.annotation.Import;
+
+/**
+ * Enables the JPA repositories of the {@link EntityIndex}, in place of 
+ *  <code>@EnableJpaRepositories</code> scanning packages for them.
+ *  
+ * <p>Each repository is a plain {@code JpaRepositoryFactoryBean}, without 
+ *  Spring Data's repository configuration. Not supported:</p>
+ * <ul>
+ * <li>custom implementations and fragments (<code>Impl</code> classes),
+ *  which fail the configuration;</li>
+ * <li>repository base classes, factory bean classes, query lookup 
+ *  strategies and nested repositories;</li>
+ * <li>named queries from <code>META-INF/jpa-named-queries.properties</code>;
+ *  named queries of the persistence unit still work;</li>
+ * <li>the JPA mapping context, and so Spring Data JPA auditing.</li>
+ * </ul>
+ * <p>Repositories needing any of these are enabled with 
+ *  <code>@EnableJpaRepositories</code>, in a configuration of their own. A 
+ *  repository bean name already in use also fails the configuration.</p>
+ *
+ * @author James G. Willmore
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Import(IndexedRepositoriesRegistrar.class)
+public @interface EnableIndexedRepositories {
+
+  /**
+   * The packages of the repositories; the package of the annotated class
+   * when none is given.
+   *
+   * @return the base packages
+   */
+  String[] basePackages() default {};
+
+  /**
+   * The name of the entity manager factory bean.
+   *
+   * @return the entity manager factory bean name
+   */
+  String entityManagerFactoryRef() default "entityManagerFactory";
+
+  /**
+   * The name of the transaction manager bean.
+   *
+   * @return the transaction manager bean name
+   */
+  String transactionManagerRef() default "transactionManager";
+}
@@ -0,0 +1,186 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The index of the entities and repositories, written at build time by 
+ *  {@link EntityIndexProcessor} and read at bootstrap in place of a 
+ *  classpath scan. Each jar or class directory holds its own index files, 
+ *  listing one binary class name per line; all of them on the classpath 
+ *  are read.
+ *
+ * @author James G. Willmore
+ */
+public final class EntityIndex {
+
+  /** The location of the index of entities. */
+  public static final String ENTITIES = "META-INF/net.ljcomputing/entities.index";
+
+  /** The location of the index of repositories. */
+  public static final String REPOSITORIES = "META-INF/net.ljcomputing/repositories.index";
+
+  /** The entity class names. */
+  private final List<String> entities;
+
+  /** The repository interface names. */
+  private final List<String> repositories;
+
+  /**
+   * Instantiates a new entity index.
+   *
+   * @param entities the entity class names
+   * @param repositories the repository interface names
+   */
+  private EntityIndex(final List<String> entities, final List<String> repositories) {
+    this.entities = entities;
+    this.repositories = repositories;
+  }
+
+  /**
+   * Load the index files on the classpath.
+   *
+   * @param classLoader the class loader
+   * @return the entity index
+   */
+  public static EntityIndex load(final ClassLoader classLoader) {
+    return new EntityIndex(read(classLoader, ENTITIES), read(classLoader, REPOSITORIES));
+  }
+
+  /**
+   * Gets the indexed entity class names.
+   *
+   * @return the entity class names
+   */
+  public List<String> getEntities() {
+    return entities;
+  }
+
+  /**
+   * Gets the indexed entity class names within the given packages, or all
+   * when no package is given.
+   *
+   * @param packages the packages
+   * @return the entity class names
+   */
+  public List<String> getEntities(final String... packages) {
+    return filter(entities, packages);
+  }
+
+  /**
+   * Gets the indexed repository interface names.
+   *
+   * @return the repository interface names
+   */
+  public List<String> getRepositories() {
+    return repositories;
+  }
+
+  /**
+   * Gets the indexed repository interface names within the given packages,
+   * or all when no package is given.
+   *
+   * @param packages the packages
+   * @return the repository interface names
+   */
+  public List<String> getRepositories(final String... packages) {
+    return filter(repositories, packages);
+  }
+
+  /**
+   * Filter class names to those within the given packages, including their
+   * sub packages.
+   *
+   * @param names the class names
+   * @param packages the packages
+   * @return the class names within the packages
+   */
+  private static List<String> filter(final List<String> names, final String... packages) {
+    if (packages.length == 0) {
+      return names;
+    }
+
+    final List<String> filtered = new ArrayList<String>();
+
+    for (final String name : names) {
+      for (final String pkg : packages) {
+        if (name.startsWith(pkg + ".")) {
+          filtered.add(name);
+          break;
+        }
+      }
+    }
+
+    return filtered;
+  }
+
+  /**
+   * Read every index file of the given location on the classpath. Blank 
+   * lines and lines starting with # are skipped.
+   *
+   * @param classLoader the class loader
+   * @param location the location of the index files
+   * @return the class names, in classpath order without duplicates
+   */
+  private static List<String> read(final ClassLoader classLoader, final String location) {
+    final Set<String> names = new LinkedHashSet<String>();
+
+    try {
+      final Enumeration<URL> urls = classLoader.getResources(location);
+
+      while (urls.hasMoreElements()) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            urls.nextElement().openStream(), StandardCharsets.UTF_8))) {
+          String line = reader.readLine();
+
+          while (line != null) {
+            final String name = line.trim();
+
+            if (!name.isEmpty() && name.charAt(0) != '#') {
+              names.add(name);
+            }
+
+            line = reader.readLine();
+          }
+        }
+      }
+    } catch (IOException exception) {
+      throw new IllegalStateException("Could not read the index " + location, exception);
+    }
+
+    return Collections.unmodifiableList(new ArrayList<String>(names));
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "EntityIndex [entities=" + entities + ", repositories=" + repositories + "]";
+  }
+}
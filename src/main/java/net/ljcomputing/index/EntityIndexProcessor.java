@@ -0,0 +1,265 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.persistence.Entity;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.springframework.data.repository.NoRepositoryBean;
+
+import net.ljcomputing.entity.PersistedEntity;
+import net.ljcomputing.repository.BaseCrudRepository;
+
+/**
+ * Annotation processor writing the {@link EntityIndex}: the concrete 
+ *  {@link Entity} classes implementing {@link PersistedEntity}, and the
+ *  repository interfaces extending {@link BaseCrudRepository} not annotated 
+ *  with {@link NoRepositoryBean}.
+ *  
+ * <p>The processor is registered in 
+ *  <code>META-INF/services/javax.annotation.processing.Processor</code>, so
+ *  javac runs it when compiling any module depending on this one. On an 
+ *  incremental compile, entries of the previous index that are still
+ *  entities or repositories are kept.
+ *
+ * @author James G. Willmore
+ */
+@SupportedAnnotationTypes("*")
+public class EntityIndexProcessor extends AbstractProcessor {
+
+  /** The entity class names. */
+  private final Set<String> entities = new TreeSet<String>();
+
+  /** The repository interface names. */
+  private final Set<String> repositories = new TreeSet<String>();
+
+  /** The persisted entity type; null when not on the compile path. */
+  private TypeMirror entityType;
+
+  /** The base repository type; null when not on the compile path. */
+  private TypeMirror repositoryType;
+
+  /**
+   * @see javax.annotation.processing.AbstractProcessor#init(
+   *     javax.annotation.processing.ProcessingEnvironment)
+   */
+  @Override
+  public synchronized void init(final ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+
+    final Elements elements = processingEnv.getElementUtils();
+    final TypeElement entity = elements.getTypeElement(PersistedEntity.class.getName());
+    final TypeElement repository = elements.getTypeElement(BaseCrudRepository.class.getName());
+
+    if (entity != null && repository != null) {
+      entityType = entity.asType();
+      repositoryType = repository.asType();
+    }
+  }
+
+  /**
+   * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, 
+   *     javax.annotation.processing.RoundEnvironment)
+   */
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations,
+      final RoundEnvironment roundEnv) {
+    if (entityType == null) {
+      return false;
+    }
+
+    if (roundEnv.processingOver()) {
+      write(EntityIndex.ENTITIES, entities);
+      write(EntityIndex.REPOSITORIES, repositories);
+    } else {
+      for (final Element element : roundEnv.getRootElements()) {
+        collect(element);
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Collect a type, and the types nested in it, when it is an entity or a 
+   * repository.
+   *
+   * @param element the element
+   */
+  private void collect(final Element element) {
+    if (!element.getKind().isClass() && !element.getKind().isInterface()) {
+      return;
+    }
+
+    final TypeElement type = (TypeElement) element;
+
+    if (isEntity(type)) {
+      entities.add(binaryName(type));
+    } else if (isRepository(type)) {
+      repositories.add(binaryName(type));
+    }
+
+    for (final Element enclosed : type.getEnclosedElements()) {
+      collect(enclosed);
+    }
+  }
+
+  /**
+   * Checks if a type is a concrete persisted entity.
+   *
+   * @param type the type
+   * @return true, if an entity
+   */
+  private boolean isEntity(final TypeElement type) {
+    return type.getKind() == ElementKind.CLASS 
+        && !type.getModifiers().contains(Modifier.ABSTRACT)
+        && type.getAnnotation(Entity.class) != null 
+        && isSubtype(type, entityType);
+  }
+
+  /**
+   * Checks if a type is a repository interface a repository bean is created
+   * for.
+   *
+   * @param type the type
+   * @return true, if a repository
+   */
+  private boolean isRepository(final TypeElement type) {
+    return type.getKind() == ElementKind.INTERFACE 
+        && type.getAnnotation(NoRepositoryBean.class) == null
+        && isSubtype(type, repositoryType);
+  }
+
+  /**
+   * Checks if a type is a subtype of another, ignoring type arguments.
+   *
+   * @param type the type
+   * @param superType the super type
+   * @return true, if a subtype
+   */
+  private boolean isSubtype(final TypeElement type, final TypeMirror superType) {
+    final Types types = processingEnv.getTypeUtils();
+    return types.isSubtype(types.erasure(type.asType()), types.erasure(superType));
+  }
+
+  /**
+   * Gets the binary name of a type, as loaded by a class loader.
+   *
+   * @param type the type
+   * @return the binary name
+   */
+  private String binaryName(final TypeElement type) {
+    return processingEnv.getElementUtils().getBinaryName(type).toString();
+  }
+
+  /**
+   * Write an index file, keeping the entries of the previous one that are
+   * still entities or repositories. Nothing is written when the index would 
+   * be empty.
+   *
+   * @param location the location of the index file
+   * @param names the class names found by this compile
+   */
+  private void write(final String location, final Set<String> names) {
+    names.addAll(previous(location));
+
+    if (names.isEmpty()) {
+      return;
+    }
+
+    try {
+      final FileObject file = processingEnv.getFiler()
+          .createResource(StandardLocation.CLASS_OUTPUT, "", location);
+
+      try (Writer writer = file.openWriter()) {
+        for (final String name : names) {
+          writer.write(name);
+          writer.write('\n');
+        }
+      }
+    } catch (IOException exception) {
+      processingEnv.getMessager().printMessage(Kind.ERROR, 
+          "Could not write the index " + location + ": " + exception.getMessage());
+    }
+  }
+
+  /**
+   * Read the entries of the previous index file that are still entities or
+   * repositories.
+   *
+   * @param location the location of the index file
+   * @return the class names
+   */
+  private Set<String> previous(final String location) {
+    final Set<String> names = new TreeSet<String>();
+    final Elements elements = processingEnv.getElementUtils();
+
+    try {
+      final FileObject file = processingEnv.getFiler()
+          .getResource(StandardLocation.CLASS_OUTPUT, "", location);
+
+      try (BufferedReader reader = new BufferedReader(file.openReader(true))) {
+        String line = reader.readLine();
+
+        while (line != null) {
+          final String name = line.trim();
+
+          final TypeElement type = name.isEmpty() ? null 
+              : elements.getTypeElement(name.replace('$', '.'));
+
+          if (type != null && (isEntity(type) || isRepository(type))) {
+            names.add(name);
+          }
+
+          line = reader.readLine();
+        }
+      }
+    } catch (IOException | IllegalArgumentException exception) { //NOPMD
+      // no previous index
+    }
+
+    return names;
+  }
+}
@@ -0,0 +1,81 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.index;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo;
+import org.springframework.orm.jpa.persistenceunit.PersistenceUnitPostProcessor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Persistence unit post processor adding the indexed entities to the 
+ *  persistence unit, in place of scanning packages for them. Set it on an
+ *  entity manager factory bean with an empty list of packages to scan:
+ *  
+ * <pre>
+ * factory.setPackagesToScan();
+ * factory.setPersistenceUnitPostProcessors(
+ *     new IndexedPersistenceUnitPostProcessor("net.ljcomputing.entity"));
+ * </pre>
+ *
+ * @author James G. Willmore
+ */
+public class IndexedPersistenceUnitPostProcessor implements PersistenceUnitPostProcessor {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = 
+      LoggerFactory.getLogger(IndexedPersistenceUnitPostProcessor.class);
+
+  /** The packages of the entities; all indexed entities when empty. */
+  private final String[] packages;
+
+  /**
+   * Instantiates a new indexed persistence unit post processor.
+   *
+   * @param packages the packages of the entities; all indexed entities when
+   *     none is given
+   */
+  public IndexedPersistenceUnitPostProcessor(final String... packages) {
+    this.packages = packages.clone();
+  }
+
+  /**
+   * @see org.springframework.orm.jpa.persistenceunit.PersistenceUnitPostProcessor
+   *     #postProcessPersistenceUnitInfo(
+   *     org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo)
+   */
+  @Override
+  public void postProcessPersistenceUnitInfo(final MutablePersistenceUnitInfo pui) {
+    final List<String> entities = EntityIndex.load(ClassUtils.getDefaultClassLoader())
+        .getEntities(packages);
+
+    if (entities.isEmpty()) {
+      LOGGER.warn("No indexed entities for persistence unit {}; is the index processor "
+          + "enabled for the compile?", pui.getPersistenceUnitName());
+    }
+
+    for (final String entity : entities) {
+      pui.addManagedClassName(entity);
+    }
+
+    LOGGER.debug("added {} indexed entities to persistence unit {}", entities.size(),
+        pui.getPersistenceUnitName());
+  }
+}
@@ -0,0 +1,114 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.index;
+
+import java.beans.Introspector;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Registers a JPA repository factory bean for each indexed repository in 
+ *  the packages of {@link EnableIndexedRepositories}. Beans are named as 
+ *  <code>@EnableJpaRepositories</code> names them, after the uncapitalized 
+ *  interface name, and use a shared entity manager of the configured entity
+ *  manager factory.
+ *  
+ * <p>Spring Data's repository configuration is bypassed, so the features it
+ *  provides and this registrar does not are refused rather than silently 
+ *  dropped: a repository with a custom implementation, a class named after
+ *  the interface with the <code>Impl</code> postfix, or a bean name already
+ *  in use fail the configuration.</p>
+ *
+ * @author James G. Willmore
+ */
+public class IndexedRepositoriesRegistrar 
+    implements ImportBeanDefinitionRegistrar, BeanClassLoaderAware {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(IndexedRepositoriesRegistrar.class);
+
+  /** The postfix of custom repository implementation class names. */
+  private static final String IMPLEMENTATION_POSTFIX = "Impl";
+
+  /** The bean class loader. */
+  private ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+
+  /**
+   * @see org.springframework.beans.factory.BeanClassLoaderAware
+   *     #setBeanClassLoader(java.lang.ClassLoader)
+   */
+  @Override
+  public void setBeanClassLoader(final ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * @see org.springframework.context.annotation.ImportBeanDefinitionRegistrar
+   *     #registerBeanDefinitions(org.springframework.core.type.AnnotationMetadata, 
+   *     org.springframework.beans.factory.support.BeanDefinitionRegistry)
+   */
+  @Override
+  public void registerBeanDefinitions(final AnnotationMetadata metadata,
+      final BeanDefinitionRegistry registry) {
+    final Map<String, Object> attributes = 
+        metadata.getAnnotationAttributes(EnableIndexedRepositories.class.getName());
+    String[] basePackages = (String[]) attributes.get("basePackages");
+
+    if (basePackages.length == 0) {
+      basePackages = new String[] { ClassUtils.getPackageName(metadata.getClassName()) };
+    }
+
+    final BeanDefinition entityManager = BeanDefinitionBuilder
+        .rootBeanDefinition(SharedEntityManagerCreator.class)
+        .setFactoryMethod("createSharedEntityManager")
+        .addConstructorArgReference((String) attributes.get("entityManagerFactoryRef"))
+        .getBeanDefinition();
+
+    for (final String repository : EntityIndex.load(classLoader).getRepositories(basePackages)) {
+      final String beanName = Introspector.decapitalize(ClassUtils.getShortName(repository));
+
+      if (ClassUtils.isPresent(repository + IMPLEMENTATION_POSTFIX, classLoader)) {
+        throw new IllegalStateException("custom repository implementations are not supported"
+            + " by indexed repositories, use @EnableJpaRepositories for " + repository);
+      }
+
+      if (registry.containsBeanDefinition(beanName)) {
+        throw new IllegalStateException("bean name " + beanName + " of indexed repository "
+            + repository + " is already in use");
+      }
+
+      registry.registerBeanDefinition(beanName, BeanDefinitionBuilder
+          .rootBeanDefinition(JpaRepositoryFactoryBean.class)
+          .addPropertyValue("repositoryInterface", repository)
+          .addPropertyValue("entityManager", entityManager)
+          .addPropertyValue("transactionManager", attributes.get("transactionManagerRef"))
+          .getBeanDefinition());
+      LOGGER.debug("registered indexed repository {} as {}", repository, beanName);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the operation metrics of each entity type. Metrics are pulled 
+ *  with {@link #getOperations()} or, when JMX is enabled, read as MXBeans 
+ *  named <code>net.ljcomputing.metrics:type=EntityService,entity=ENTITY,
+ *  operation=OPERATION</code>, registered with the platform MBean server
+ *  as each operation is first recorded.
+ *
+ * @author James G. Willmore
+ */
+public class EntityMetricsRegistry {
+
+  /** The JMX domain. */
+  public static final String DOMAIN = "net.ljcomputing.metrics";
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(EntityMetricsRegistry.class);
+
+  /** The default registry, registering its metrics with JMX. */
+  private static final EntityMetricsRegistry DEFAULT = new EntityMetricsRegistry(true);
+
+  /** The operation metrics by entity type and operation name. */
+  private final ConcurrentMap<Class<?>, ConcurrentMap<String, OperationMetrics>> operations =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<String, OperationMetrics>>();
+
+  /** True, if operation metrics are registered with JMX. */
+  private final boolean jmxEnabled;
+
+  /**
+   * Instantiates a new entity metrics registry.
+   *
+   * @param jmxEnabled true, to register operation metrics with JMX
+   */
+  public EntityMetricsRegistry(final boolean jmxEnabled) {
+    this.jmxEnabled = jmxEnabled;
+  }
+
+  /**
+   * Gets the default registry, used by the entity services.
+   *
+   * @return the default registry
+   */
+  public static EntityMetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Gets the metrics of an operation on an entity type, creating them on 
+   * first use.
+   *
+   * @param entityClass the entity class
+   * @param operation the operation name
+   * @return the operation metrics
+   */
+  public OperationMetrics getOperation(final Class<?> entityClass, final String operation) {
+    ConcurrentMap<String, OperationMetrics> byName = operations.get(entityClass);
+
+    if (byName == null) {
+      byName = operations.computeIfAbsent(entityClass,
+          key -> new ConcurrentHashMap<String, OperationMetrics>());
+    }
+
+    final OperationMetrics metrics = byName.get(operation);
+
+    if (metrics != null) {
+      return metrics;
+    }
+
+    return byName.computeIfAbsent(operation,
+        key -> register(new OperationMetrics(entityClass.getSimpleName(), key)));
+  }
+
+  /**
+   * Gets the metrics of every recorded operation.
+   *
+   * @return the operation metrics
+   */
+  public List<OperationMetrics> getOperations() {
+    final List<OperationMetrics> all = new ArrayList<OperationMetrics>();
+
+    for (final ConcurrentMap<String, OperationMetrics> byName : operations.values()) {
+      all.addAll(byName.values());
+    }
+
+    return all;
+  }
+
+  /**
+   * Register operation metrics with JMX, when enabled. A failure to register
+   * is logged; the metrics are still recorded.
+   *
+   * @param metrics the operation metrics
+   * @return the operation metrics
+   */
+  private OperationMetrics register(final OperationMetrics metrics) {
+    if (jmxEnabled) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(metrics, objectName(metrics));
+      } catch (JMException exception) {
+        LOGGER.warn("Could not register {} with JMX: {}", metrics, exception.getMessage());
+      }
+    }
+
+    return metrics;
+  }
+
+  /**
+   * Gets the JMX object name of operation metrics.
+   *
+   * @param metrics the operation metrics
+   * @return the object name
+   * @throws JMException the JMX exception
+   */
+  private static ObjectName objectName(final OperationMetrics metrics) throws JMException {
+    return new ObjectName(DOMAIN + ":type=EntityService,entity=" 
+        + metrics.getEntity() + ",operation=" + metrics.getOperation());
+  }
+}
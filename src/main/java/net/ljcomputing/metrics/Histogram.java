@@ -0,0 +1,165 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of non-negative long values with log-linear 
+ *  buckets: each power of two range is split into eight linear buckets, so 
+ *  quantiles are reported within 12.5% of the recorded value using a fixed
+ *  488 counters whatever the range of values. Recording is a few atomic
+ *  increments and never allocates.
+ * 
+ * <p>Reads are not a consistent snapshot; values recorded concurrently 
+ *  with a read may or may not be counted.</p>
+ *
+ * @author James G. Willmore
+ */
+public class Histogram {
+
+  /** The number of bits of the value, below its highest bit, selecting the linear bucket. */
+  private static final int SUB_BUCKET_BITS = 3;
+
+  /** The number of linear buckets per power of two. */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** The number of buckets, covering values up to Long.MAX_VALUE. */
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  /** The bucket counts. */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /** The number of recorded values. */
+  private final LongAdder count = new LongAdder();
+
+  /** The sum of recorded values. */
+  private final LongAdder sum = new LongAdder();
+
+  /** The maximum recorded value. */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Record a value; negative values are recorded as zero.
+   *
+   * @param value the value
+   */
+  public void record(final long value) {
+    final long recorded = Math.max(value, 0);
+    counts.incrementAndGet(bucket(recorded));
+    count.increment();
+    sum.add(recorded);
+    max.accumulate(recorded);
+  }
+
+  /**
+   * Gets the number of recorded values.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean of the recorded values.
+   *
+   * @return the mean, zero when nothing was recorded
+   */
+  public double getMean() {
+    final long recorded = count.sum();
+    return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+  }
+
+  /**
+   * Gets the maximum recorded value.
+   *
+   * @return the maximum, zero when nothing was recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Gets the value at the given quantile, as the upper bound of the bucket
+   * holding it.
+   *
+   * @param quantile the quantile, between 0 and 1
+   * @return the value at the quantile, zero when nothing was recorded
+   */
+  public long getValueAtQuantile(final double quantile) {
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("quantile must be between 0 and 1");
+    }
+
+    final long[] snapshot = new long[BUCKETS];
+    long total = 0;
+
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      total += snapshot[bucket];
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += snapshot[bucket];
+
+      if (seen >= rank) {
+        return Math.min(upperBound(bucket), getMax());
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Gets the bucket of a value. Values below eight have a bucket each; above,
+   * the bucket is chosen by the highest bit and the three bits below it.
+   *
+   * @param value the non-negative value
+   * @return the bucket
+   */
+  public static int bucket(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Gets the largest value held by a bucket.
+   *
+   * @param bucket the bucket
+   * @return the upper bound
+   */
+  public static long upperBound(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lower + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,202 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one operation on one entity type: a latency histogram of
+ *  completed calls in nanoseconds, the distribution of the number of
+ *  entities each call returned or wrote, and an error counter.
+ *
+ * @author James G. Willmore
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+
+  /** The nanoseconds per microsecond, as a double. */
+  private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+  /** The entity type name. */
+  private final String entity;
+
+  /** The operation name. */
+  private final String operation;
+
+  /** The latency of completed calls in nanoseconds. */
+  private final Histogram latency = new Histogram();
+
+  /** The number of entities returned or written per completed call. */
+  private final Histogram resultSize = new Histogram();
+
+  /** The number of calls that threw an exception. */
+  private final LongAdder errors = new LongAdder();
+
+  /**
+   * Instantiates new operation metrics.
+   *
+   * @param entity the entity type name
+   * @param operation the operation name
+   */
+  public OperationMetrics(final String entity, final String operation) {
+    this.entity = entity;
+    this.operation = operation;
+  }
+
+  /**
+   * Record a completed call.
+   *
+   * @param elapsedNanos the latency in nanoseconds
+   * @param size the number of entities returned or written
+   */
+  public void record(final long elapsedNanos, final long size) {
+    latency.record(elapsedNanos);
+    resultSize.record(size);
+  }
+
+  /**
+   * Record a call that threw an exception.
+   */
+  public void recordError() {
+    errors.increment();
+  }
+
+  /**
+   * Gets the latency histogram, in nanoseconds.
+   *
+   * @return the latency histogram
+   */
+  public Histogram getLatency() {
+    return latency;
+  }
+
+  /**
+   * Gets the result size histogram.
+   *
+   * @return the result size histogram
+   */
+  public Histogram getResultSize() {
+    return resultSize;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getEntity()
+   */
+  @Override
+  public String getEntity() {
+    return entity;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getOperation()
+   */
+  @Override
+  public String getOperation() {
+    return operation;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getCount()
+   */
+  @Override
+  public long getCount() {
+    return latency.getCount();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getErrorCount()
+   */
+  @Override
+  public long getErrorCount() {
+    return errors.sum();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getLatencyMeanMicros()
+   */
+  @Override
+  public double getLatencyMeanMicros() {
+    return latency.getMean() / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getLatencyP50Micros()
+   */
+  @Override
+  public double getLatencyP50Micros() {
+    return latency.getValueAtQuantile(0.5) / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getLatencyP99Micros()
+   */
+  @Override
+  public double getLatencyP99Micros() {
+    return latency.getValueAtQuantile(0.99) / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getLatencyP999Micros()
+   */
+  @Override
+  public double getLatencyP999Micros() {
+    return latency.getValueAtQuantile(0.999) / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getLatencyMaxMicros()
+   */
+  @Override
+  public double getLatencyMaxMicros() {
+    return latency.getMax() / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getResultSizeMean()
+   */
+  @Override
+  public double getResultSizeMean() {
+    return resultSize.getMean();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getResultSizeP99()
+   */
+  @Override
+  public long getResultSizeP99() {
+    return resultSize.getValueAtQuantile(0.99);
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.OperationMetricsMXBean#getResultSizeMax()
+   */
+  @Override
+  public long getResultSizeMax() {
+    return resultSize.getMax();
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "OperationMetrics [entity=" + entity + ", operation=" + operation + ", count="
+        + getCount() + ", errors=" + getErrorCount() + ", p50=" + getLatencyP50Micros()
+        + "us, p99=" + getLatencyP99Micros() + "us, p999=" + getLatencyP999Micros()
+        + "us, max=" + getLatencyMaxMicros() + "us, meanResultSize=" + getResultSizeMean() + "]";
+  }
+}
@@ -0,0 +1,110 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+/**
+ * JMX view of the metrics of one operation on one entity type. Latencies
+ *  are in microseconds.
+ *
+ * @author James G. Willmore
+ */
+public interface OperationMetricsMXBean {
+
+  /**
+   * Gets the entity type name.
+   *
+   * @return the entity type name
+   */
+  String getEntity();
+
+  /**
+   * Gets the operation name.
+   *
+   * @return the operation name
+   */
+  String getOperation();
+
+  /**
+   * Gets the number of completed calls.
+   *
+   * @return the count
+   */
+  long getCount();
+
+  /**
+   * Gets the number of calls that threw an exception.
+   *
+   * @return the error count
+   */
+  long getErrorCount();
+
+  /**
+   * Gets the mean latency of completed calls.
+   *
+   * @return the mean latency in microseconds
+   */
+  double getLatencyMeanMicros();
+
+  /**
+   * Gets the median latency of completed calls.
+   *
+   * @return the median latency in microseconds
+   */
+  double getLatencyP50Micros();
+
+  /**
+   * Gets the 99th percentile latency of completed calls.
+   *
+   * @return the 99th percentile latency in microseconds
+   */
+  double getLatencyP99Micros();
+
+  /**
+   * Gets the 99.9th percentile latency of completed calls.
+   *
+   * @return the 99.9th percentile latency in microseconds
+   */
+  double getLatencyP999Micros();
+
+  /**
+   * Gets the maximum latency of completed calls.
+   *
+   * @return the maximum latency in microseconds
+   */
+  double getLatencyMaxMicros();
+
+  /**
+   * Gets the mean number of entities returned or written per call.
+   *
+   * @return the mean result size
+   */
+  double getResultSizeMean();
+
+  /**
+   * Gets the 99th percentile number of entities returned or written per call.
+   *
+   * @return the 99th percentile result size
+   */
+  long getResultSizeP99();
+
+  /**
+   * Gets the maximum number of entities returned or written by a call.
+   *
+   * @return the maximum result size
+   */
+  long getResultSizeMax();
+}
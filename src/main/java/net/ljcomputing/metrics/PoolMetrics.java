@@ -0,0 +1,278 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * The metrics of one HikariCP connection pool: a histogram of the wait to 
+ *  acquire a connection in nanoseconds, a histogram of the time connections
+ *  are held in milliseconds, a timeout counter, and the connection counts of
+ *  the pool.
+ *  
+ * <p>A wait at or above the warning threshold means callers queue for 
+ *  connections; it is logged as a sizing warning, at most once a minute. 
+ *  Either the pool is too small for the load or connections are held too 
+ *  long, which the usage histogram tells apart.
+ *
+ * @author James G. Willmore
+ */
+public class PoolMetrics extends MetricsTracker implements PoolMetricsMXBean {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PoolMetrics.class);
+
+  /** The nanoseconds per microsecond, as a double. */
+  private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+  /** The least interval between sizing warnings. */
+  private static final long WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  /** The pool name. */
+  private final String poolName;
+
+  /** The connection counts of the pool. */
+  private final PoolStats poolStats;
+
+  /** The wait at which a sizing warning is logged, in nanoseconds. */
+  private final long waitWarningNanos;
+
+  /** The factory that created the metrics, told when the pool closes. */
+  private final PoolMetricsTrackerFactory factory;
+
+  /** The wait to acquire a connection, in nanoseconds. */
+  private final Histogram wait = new Histogram();
+
+  /** The time connections are held, in milliseconds. */
+  private final Histogram usage = new Histogram();
+
+  /** The number of requests that timed out waiting for a connection. */
+  private final LongAdder timeouts = new LongAdder();
+
+  /** The time of the last sizing warning. */
+  private final AtomicLong lastWarning = new AtomicLong(System.nanoTime() 
+      - WARNING_INTERVAL_NANOS);
+
+  /**
+   * Instantiates new pool metrics.
+   *
+   * @param poolName the pool name
+   * @param poolStats the connection counts of the pool
+   * @param waitWarningNanos the wait at which a sizing warning is logged
+   * @param factory the factory creating the metrics
+   */
+  PoolMetrics(final String poolName, final PoolStats poolStats, final long waitWarningNanos,
+      final PoolMetricsTrackerFactory factory) {
+    super();
+    this.poolName = poolName;
+    this.poolStats = poolStats;
+    this.waitWarningNanos = waitWarningNanos;
+    this.factory = factory;
+  }
+
+  /**
+   * @see com.zaxxer.hikari.metrics.MetricsTracker#recordConnectionAcquiredNanos(long)
+   */
+  @Override
+  public void recordConnectionAcquiredNanos(final long elapsedAcquiredNanos) {
+    wait.record(elapsedAcquiredNanos);
+
+    if (elapsedAcquiredNanos >= waitWarningNanos && isWarningDue()) {
+      LOGGER.warn("Pool {} callers waited {} ms for a connection: {} active, {} idle, "
+          + "{} waiting; mean connection use {} ms. Increase the pool size or hold "
+          + "connections for less time.", poolName, 
+          TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos), getActiveConnections(), 
+          getIdleConnections(), getPendingThreads(), usage.getMean());
+    }
+  }
+
+  /**
+   * @see com.zaxxer.hikari.metrics.MetricsTracker#recordConnectionUsageMillis(long)
+   */
+  @Override
+  public void recordConnectionUsageMillis(final long elapsedBorrowedMillis) {
+    usage.record(elapsedBorrowedMillis);
+  }
+
+  /**
+   * @see com.zaxxer.hikari.metrics.MetricsTracker#recordConnectionTimeout()
+   */
+  @Override
+  public void recordConnectionTimeout() {
+    timeouts.increment();
+
+    if (isWarningDue()) {
+      LOGGER.warn("Pool {} timed out waiting for a connection: {} active, {} idle, "
+          + "{} waiting; {} timeouts. Increase the pool size or hold connections for "
+          + "less time.", poolName, getActiveConnections(), getIdleConnections(), 
+          getPendingThreads(), getTimeoutCount());
+    }
+  }
+
+  /**
+   * @see com.zaxxer.hikari.metrics.MetricsTracker#close()
+   */
+  @Override
+  public void close() {
+    factory.remove(this);
+  }
+
+  /**
+   * Checks if a sizing warning is due, claiming it if so.
+   *
+   * @return true, if a sizing warning is to be logged
+   */
+  private boolean isWarningDue() {
+    final long last = lastWarning.get();
+    final long now = System.nanoTime();
+    return now - last >= WARNING_INTERVAL_NANOS && lastWarning.compareAndSet(last, now);
+  }
+
+  /**
+   * Gets the wait histogram, in nanoseconds.
+   *
+   * @return the wait histogram
+   */
+  public Histogram getWait() {
+    return wait;
+  }
+
+  /**
+   * Gets the usage histogram, in milliseconds.
+   *
+   * @return the usage histogram
+   */
+  public Histogram getUsage() {
+    return usage;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getPoolName()
+   */
+  @Override
+  public String getPoolName() {
+    return poolName;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getActiveConnections()
+   */
+  @Override
+  public int getActiveConnections() {
+    return poolStats.getActiveConnections();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getIdleConnections()
+   */
+  @Override
+  public int getIdleConnections() {
+    return poolStats.getIdleConnections();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getTotalConnections()
+   */
+  @Override
+  public int getTotalConnections() {
+    return poolStats.getTotalConnections();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getPendingThreads()
+   */
+  @Override
+  public int getPendingThreads() {
+    return poolStats.getPendingThreads();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getAcquiredCount()
+   */
+  @Override
+  public long getAcquiredCount() {
+    return wait.getCount();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getWaitMeanMicros()
+   */
+  @Override
+  public double getWaitMeanMicros() {
+    return wait.getMean() / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getWaitP99Micros()
+   */
+  @Override
+  public double getWaitP99Micros() {
+    return wait.getValueAtQuantile(0.99) / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getWaitMaxMicros()
+   */
+  @Override
+  public double getWaitMaxMicros() {
+    return wait.getMax() / NANOS_PER_MICRO;
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getUsageMeanMillis()
+   */
+  @Override
+  public double getUsageMeanMillis() {
+    return usage.getMean();
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getUsageP99Millis()
+   */
+  @Override
+  public long getUsageP99Millis() {
+    return usage.getValueAtQuantile(0.99);
+  }
+
+  /**
+   * @see net.ljcomputing.metrics.PoolMetricsMXBean#getTimeoutCount()
+   */
+  @Override
+  public long getTimeoutCount() {
+    return timeouts.sum();
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "PoolMetrics [pool=" + poolName + ", active=" + getActiveConnections() + ", idle="
+        + getIdleConnections() + ", waiting=" + getPendingThreads() + ", acquired=" 
+        + getAcquiredCount() + ", waitP99=" + getWaitP99Micros() + "us, waitMax=" 
+        + getWaitMaxMicros() + "us, usageP99=" + getUsageP99Millis() + "ms, timeouts=" 
+        + getTimeoutCount() + "]";
+  }
+}
@@ -0,0 +1,110 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+/**
+ * JMX view of the metrics of a connection pool. Wait times are in 
+ *  microseconds, usage times in milliseconds.
+ *
+ * @author James G. Willmore
+ */
+public interface PoolMetricsMXBean {
+
+  /**
+   * Gets the pool name.
+   *
+   * @return the pool name
+   */
+  String getPoolName();
+
+  /**
+   * Gets the number of connections in use.
+   *
+   * @return the active connections
+   */
+  int getActiveConnections();
+
+  /**
+   * Gets the number of idle connections.
+   *
+   * @return the idle connections
+   */
+  int getIdleConnections();
+
+  /**
+   * Gets the number of connections, active and idle.
+   *
+   * @return the total connections
+   */
+  int getTotalConnections();
+
+  /**
+   * Gets the number of threads waiting for a connection.
+   *
+   * @return the pending threads
+   */
+  int getPendingThreads();
+
+  /**
+   * Gets the number of connections acquired.
+   *
+   * @return the acquired count
+   */
+  long getAcquiredCount();
+
+  /**
+   * Gets the mean wait for a connection.
+   *
+   * @return the mean wait
+   */
+  double getWaitMeanMicros();
+
+  /**
+   * Gets the 99th percentile wait for a connection.
+   *
+   * @return the 99th percentile wait
+   */
+  double getWaitP99Micros();
+
+  /**
+   * Gets the longest wait for a connection.
+   *
+   * @return the longest wait
+   */
+  double getWaitMaxMicros();
+
+  /**
+   * Gets the mean time a connection is held.
+   *
+   * @return the mean usage
+   */
+  double getUsageMeanMillis();
+
+  /**
+   * Gets the 99th percentile time a connection is held.
+   *
+   * @return the 99th percentile usage
+   */
+  long getUsageP99Millis();
+
+  /**
+   * Gets the number of requests that timed out waiting for a connection.
+   *
+   * @return the timeout count
+   */
+  long getTimeoutCount();
+}
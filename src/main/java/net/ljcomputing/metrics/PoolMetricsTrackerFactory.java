@@ -0,0 +1,139 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * HikariCP metrics tracker factory, creating the {@link PoolMetrics} of each 
+ *  pool it is set on. Metrics are pulled with {@link #getPools()} or, when 
+ *  JMX is enabled, read as MXBeans named 
+ *  <code>net.ljcomputing.metrics:type=ConnectionPool,pool=POOL</code>, 
+ *  registered while the pool is open.
+ *
+ * @author James G. Willmore
+ */
+public class PoolMetricsTrackerFactory implements MetricsTrackerFactory {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PoolMetricsTrackerFactory.class);
+
+  /** The pool metrics by pool name. */
+  private final ConcurrentMap<String, PoolMetrics> pools = 
+      new ConcurrentHashMap<String, PoolMetrics>();
+
+  /** The wait at which a sizing warning is logged, in nanoseconds. */
+  private final long waitWarningNanos;
+
+  /** True, if pool metrics are registered with JMX. */
+  private final boolean jmxEnabled;
+
+  /**
+   * Instantiates a new pool metrics tracker factory.
+   *
+   * @param waitWarningMillis the wait for a connection at which a sizing 
+   *     warning is logged, in milliseconds
+   * @param jmxEnabled true, to register pool metrics with JMX
+   */
+  public PoolMetricsTrackerFactory(final long waitWarningMillis, final boolean jmxEnabled) {
+    this.waitWarningNanos = TimeUnit.MILLISECONDS.toNanos(waitWarningMillis);
+    this.jmxEnabled = jmxEnabled;
+  }
+
+  /**
+   * @see com.zaxxer.hikari.metrics.MetricsTrackerFactory#create(java.lang.String, 
+   *     com.zaxxer.hikari.metrics.PoolStats)
+   */
+  @Override
+  public PoolMetrics create(final String poolName, final PoolStats poolStats) {
+    final PoolMetrics metrics = new PoolMetrics(poolName, poolStats, waitWarningNanos, this);
+    pools.put(poolName, metrics);
+
+    if (jmxEnabled) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(metrics, objectName(poolName));
+      } catch (JMException exception) {
+        LOGGER.warn("Could not register {} with JMX: {}", metrics, exception.getMessage());
+      }
+    }
+
+    return metrics;
+  }
+
+  /**
+   * Gets the metrics of an open pool.
+   *
+   * @param poolName the pool name
+   * @return the pool metrics, or null if no such pool is open
+   */
+  public PoolMetrics getPool(final String poolName) {
+    return pools.get(poolName);
+  }
+
+  /**
+   * Gets the metrics of every open pool.
+   *
+   * @return the pool metrics
+   */
+  public List<PoolMetrics> getPools() {
+    return new ArrayList<PoolMetrics>(pools.values());
+  }
+
+  /**
+   * Remove the metrics of a closed pool, unregistering them from JMX.
+   *
+   * @param metrics the pool metrics
+   */
+  void remove(final PoolMetrics metrics) {
+    if (pools.remove(metrics.getPoolName(), metrics) && jmxEnabled) {
+      try {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.unregisterMBean(objectName(metrics.getPoolName()));
+      } catch (JMException exception) {
+        LOGGER.debug("Could not unregister {} from JMX: {}", metrics, exception.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Gets the JMX object name of pool metrics.
+   *
+   * @param poolName the pool name
+   * @return the object name
+   * @throws JMException the JMX exception
+   */
+  private static ObjectName objectName(final String poolName) throws JMException {
+    return new ObjectName(EntityMetricsRegistry.DOMAIN + ":type=ConnectionPool,pool=" 
+        + poolName);
+  }
+}
@@ -0,0 +1,26 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+/**
+ * Package containing the in process metrics of the entity services: 
+ * latency and result size histograms and counters per entity type and
+ * operation, and the wait, usage and timeouts of the connection pools,
+ * pulled from a registry or read through JMX.
+ * 
+ * @author James G. Willmore
+ *
+ */
+package net.ljcomputing.metrics;
\ No newline at end of file
@@ -16,8 +16,14 @@
 
 package net.ljcomputing.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
 
 import net.ljcomputing.entity.PersistedEntity;
 
@@ -30,4 +36,43 @@ import net.ljcomputing.entity.PersistedEntity;
 @NoRepositoryBean
 public interface BaseCrudRepository<T extends PersistedEntity> extends CrudRepository<T, Long> {
 
+  /**
+   * Find the entity with the given uuid.
+   *
+   * @param uuid the uuid
+   * @return the entity, null if not found
+   */
+  T findByUuid(String uuid);
+
+  /**
+   * Find the entities with the given uuids.
+   *
+   * @param uuids the uuids
+   * @return the entities found
+   */
+  List<T> findByUuidIn(Collection<String> uuids);
+
+  /**
+   * Find the entities with an id greater than the given id, in id order.
+   *
+   * @param id the last id read
+   * @param pageable the limit
+   * @return the entities
+   */
+  List<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  /**
+   * Find the entities positioned after the given modified time stamp and id,
+   *  in modified time stamp and id order. The leading range on the modified
+   *  time stamp lets an index on (MODIFIED_TS, ID) be used.
+   *
+   * @param modifiedTs the last modified time stamp read
+   * @param id the last id read
+   * @param pageable the limit
+   * @return the entities
+   */
+  @Query("select e from #{#entityName} e where e.modifiedTs >= :modifiedTs"
+      + " and (e.modifiedTs > :modifiedTs or e.id > :id) order by e.modifiedTs asc, e.id asc")
+  List<T> findModifiedAfter(@Param("modifiedTs") Long modifiedTs, @Param("id") Long id,
+      Pageable pageable);
 }
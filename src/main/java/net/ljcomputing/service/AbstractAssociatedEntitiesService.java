@@ -0,0 +1,378 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.transaction.annotation.Transactional;
+
+import net.ljcomputing.entity.AbstractPooledPersistedEntity;
+import net.ljcomputing.entity.PersistedEntity;
+import net.ljcomputing.repository.BaseCrudRepository;
+
+/**
+ * Abstract JPA implementation of an associated entities service. The group
+ * member entity maps the group and the member as many to one associations;
+ * members are read along with the group member rows in a single join.
+ * 
+ * <p>The group member ids are allocated from a pooled sequence, as Hibernate
+ * does not batch inserts of identity generated ids, so group members created
+ * in bulk are written in JDBC batches.</p>
+ *
+ * @author James G. Willmore
+ * @param <T> the group
+ * @param <S> the member
+ * @param <R> the group member
+ * @param <G> the repository for the group member
+ */
+public abstract class AbstractAssociatedEntitiesService<T extends PersistedEntity, 
+    S extends PersistedEntity, R extends AbstractPooledPersistedEntity,
+    G extends BaseCrudRepository<R>>
+    implements AssociatedEntitiesService<T, S, R> {
+
+  /** The group member repository. */
+  @Autowired
+  protected transient G repository;
+
+  /** The entity manager. */
+  @PersistenceContext
+  protected transient EntityManager entityManager;
+
+  /** The number of rows fetched per round trip by streaming reads. */
+  @Value("${entity.service.fetchSize:100}")
+  private transient int fetchSize;
+
+  /** The number of group members written per flush of the persistence context. */
+  @Value("${entity.service.batchSize:50}")
+  private transient int batchSize;
+
+  /** The group member class. */
+  private transient Class<R> associationClass;
+
+  /**
+   * Creates a new, unsaved, group member.
+   *
+   * @param group the group
+   * @param member the member
+   * @return the group member
+   */
+  protected abstract R newAssociation(T group, S member);
+
+  /**
+   * Gets the name of the group member attribute referencing the group.
+   *
+   * @return the group attribute name
+   */
+  protected abstract String getGroupAttribute();
+
+  /**
+   * Gets the name of the group member attribute referencing the member.
+   *
+   * @return the member attribute name
+   */
+  protected abstract String getMemberAttribute();
+
+  /**
+   * Sets the fetch size used by streaming reads.
+   *
+   * @param fetchSize the new fetch size
+   */
+  public void setFetchSize(final int fetchSize) {
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("fetch size must be greater than zero");
+    }
+
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #createAssociation(net.ljcomputing.entity.PersistedEntity, 
+   *    net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  @Transactional
+  public R createAssociation(final T group, final S member) {
+    return repository.save(newAssociation(group, member));
+  }
+
+  /**
+   * Creates the associations, detaching each batch of group members once
+   * flushed. Other entities held by the persistence context, the group
+   * included, stay managed.
+   *
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #createAssociations(net.ljcomputing.entity.PersistedEntity, java.util.Collection)
+   */
+  @Override
+  @Transactional
+  public long createAssociations(final T group, final Collection<S> members) {
+    final List<R> batch = new ArrayList<R>(batchSize);
+    long count = 0;
+
+    for (final S member : members) {
+      final R association = newAssociation(group, member);
+      entityManager.persist(association);
+      batch.add(association);
+      count++;
+
+      if (batch.size() == batchSize) {
+        flushAndDetach(batch);
+      }
+    }
+
+    flushAndDetach(batch);
+
+    return count;
+  }
+
+  /**
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #countAssociation(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public long countAssociation(final T group) {
+    return entityManager.createQuery("select count(r.id) from " + getAssociationName() 
+        + " r where r." + getGroupAttribute() + " = :group", Long.class)
+        .setParameter("group", group).getSingleResult();
+  }
+
+  /**
+   * Checks the association by counting the rows of the group and member
+   * foreign keys, so an index on the two columns answers it without reading
+   * the group member rows.
+   *
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #isAssociated(net.ljcomputing.entity.PersistedEntity, 
+   *    net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public boolean isAssociated(final T group, final S member) {
+    return entityManager.createQuery("select count(*) from " + getAssociationName() + " r where r."
+        + getGroupAttribute() + " = :group and r." + getMemberAttribute() + " = :member",
+        Long.class).setParameter("group", group).setParameter("member", member)
+        .getSingleResult() > 0;
+  }
+
+  /**
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #listAssociation(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<R> listAssociation(final T group) {
+    return entityManager.createQuery(selectMembers("") + " order by r.id", getAssociationClass())
+        .setParameter("group", group).getResultList();
+  }
+
+  /**
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #listAssociation(net.ljcomputing.entity.PersistedEntity, java.lang.Long, int)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<R> listAssociation(final T group, final Long lastId, final int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("page size must be greater than zero");
+    }
+
+    final List<R> rows = entityManager
+        .createQuery(selectMembers(" and r.id > :id") + " order by r.id", getAssociationClass())
+        .setParameter("group", group).setParameter("id", lastId == null ? Long.MIN_VALUE : lastId)
+        .setMaxResults(size + 1).getResultList();
+    return KeysetPage.of(rows, size, false);
+  }
+
+  /**
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #listAssociation(net.ljcomputing.entity.PersistedEntity, java.util.function.Consumer)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public long listAssociation(final T group, final Consumer<? super R> consumer) {
+    final Session session = entityManager.unwrap(Session.class);
+    final ManagedEntities managed = new ManagedEntities(session);
+    final ScrollableResults results = session
+        .createQuery("select r, m from " + getAssociationName() + " r join r."
+            + getMemberAttribute() + " m where r." + getGroupAttribute() + " = :group"
+            + " order by r.id")
+        .setParameter("group", group).setFetchSize(fetchSize).setReadOnly(true)
+        .setCacheMode(CacheMode.IGNORE).scroll(ScrollMode.FORWARD_ONLY);
+    long count = 0;
+
+    try {
+      while (results.next()) {
+        final R association = (R) results.get(0);
+        consumer.accept(association);
+        managed.evictLoaded(association);
+        managed.evictLoaded(results.get(1));
+        count++;
+      }
+    } finally {
+      results.close();
+    }
+
+    return count;
+  }
+
+  /**
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #removeAssociation(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  @Transactional
+  public void removeAssociation(final R groupMember) {
+    repository.delete(groupMember);
+  }
+
+  /**
+   * Removes the associations in bulk deletes keyed on the member id. The bulk
+   * deletes bypass the persistence context, so the removed group members it
+   * holds are detached afterwards; other entities stay managed.
+   *
+   * @see net.ljcomputing.service.AssociatedEntitiesService
+   *    #removeAssociations(net.ljcomputing.entity.PersistedEntity, java.util.Collection)
+   */
+  @Override
+  @Transactional
+  public long removeAssociations(final T group, final Collection<S> members) {
+    final Set<Long> ids = new HashSet<Long>();
+
+    for (final S member : members) {
+      ids.add(member.getId());
+    }
+
+    entityManager.flush();
+    long removed = 0;
+
+    for (final List<Long> chunk : InListChunks.of(ids)) {
+      removed += entityManager.createQuery("delete from " + getAssociationName() + " r where r."
+          + getGroupAttribute() + " = :group and r." + getMemberAttribute() + ".id in :ids")
+          .setParameter("group", group).setParameter("ids", chunk).executeUpdate();
+    }
+
+    detachAssociations(group, ids);
+
+    return removed;
+  }
+
+  /**
+   * Gets the group member class.
+   *
+   * @return the group member class
+   */
+  @SuppressWarnings("unchecked")
+  protected Class<R> getAssociationClass() {
+    if (associationClass == null) {
+      associationClass = (Class<R>) GenericTypeResolver.resolveTypeArguments(getClass(),
+          AbstractAssociatedEntitiesService.class)[2];
+    }
+
+    return associationClass;
+  }
+
+  /**
+   * Gets the group member entity name used in queries.
+   *
+   * @return the group member entity name
+   */
+  protected String getAssociationName() {
+    return entityManager.getMetamodel().entity(getAssociationClass()).getName();
+  }
+
+  /**
+   * Flush the persisted group members and detach them.
+   *
+   * @param batch the persisted group members, emptied once detached
+   */
+  private void flushAndDetach(final List<R> batch) {
+    entityManager.flush();
+
+    for (final R association : batch) {
+      entityManager.detach(association);
+    }
+
+    batch.clear();
+  }
+
+  /**
+   * Detach the group members of the group, for the given member ids, held by
+   * the persistence context.
+   *
+   * @param group the group
+   * @param memberIds the member ids
+   */
+  private void detachAssociations(final T group, final Set<Long> memberIds) {
+    final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    final ClassMetadata metadata = session.getFactory().getClassMetadata(getAssociationClass());
+    final List<Object> detached = new ArrayList<Object>();
+
+    for (final Object entity : session.getPersistenceContext().getEntitiesByKey().values()) {
+      if (getAssociationClass().isInstance(entity)
+          && group.getId().equals(idOf(metadata.getPropertyValue(entity, getGroupAttribute())))
+          && memberIds.contains(idOf(metadata.getPropertyValue(entity, getMemberAttribute())))) {
+        detached.add(entity);
+      }
+    }
+
+    for (final Object entity : detached) {
+      entityManager.detach(entity);
+    }
+  }
+
+  /**
+   * Gets the id of an associated entity, without initializing it if a proxy.
+   *
+   * @param entity the entity
+   * @return the id, null if there is no entity
+   */
+  private static Long idOf(final Object entity) {
+    return entity == null ? null : ((PersistedEntity) entity).getId();
+  }
+
+  /**
+   * Build the query selecting the members of a group, fetching each member
+   * with its group member row.
+   *
+   * @param condition additional condition on the group member alias r
+   * @return the query
+   */
+  private String selectMembers(final String condition) {
+    return "select r from " + getAssociationName() + " r join fetch r." + getMemberAttribute()
+        + " where r." + getGroupAttribute() + " = :group" + condition;
+  }
+}
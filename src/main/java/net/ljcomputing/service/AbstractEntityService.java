@@ -16,11 +16,54 @@
 
 package net.ljcomputing.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.metamodel.EntityType;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import net.ljcomputing.cache.EntityCache;
+import net.ljcomputing.cache.EntityCacheStatistics;
+import net.ljcomputing.clock.EntityClocks;
+import net.ljcomputing.datasource.ReadWriteRoutingDataSource;
 import net.ljcomputing.entity.PersistedEntity;
+import net.ljcomputing.metrics.EntityMetricsRegistry;
+import net.ljcomputing.metrics.OperationMetrics;
 import net.ljcomputing.repository.BaseCrudRepository;
 
 /**
@@ -33,33 +76,695 @@ import net.ljcomputing.repository.BaseCrudRepository;
 public abstract class AbstractEntityService<T extends PersistedEntity, R extends BaseCrudRepository<T>>
     implements EntityService<T> {
 
+  /** The default cache time to live in seconds. */
+  private static final long DEFAULT_CACHE_TTL_SECONDS = 300;
+
+  /** The default write behind flush interval in milliseconds. */
+  private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+  /** The attributes maintained by the framework, which cannot be updated directly. */
+  private static final Set<String> RESERVED_ATTRIBUTES = new HashSet<String>(
+      Arrays.asList("id", "uuid", "createdTs", "modifiedTs"));
+
+  /** The createOrUpdate operation name, as recorded in the metrics. */
+  private static final String CREATE_OR_UPDATE = "createOrUpdate";
+
+  /** The readAll operation name, as recorded in the metrics. */
+  private static final String READ_ALL = "readAll";
+
+  /** The readById operation name, as recorded in the metrics. */
+  private static final String READ_BY_ID = "readById";
+
+  /** The delete operation name, as recorded in the metrics. */
+  private static final String DELETE = "delete";
+
   /** The repository. */
   @Autowired
   protected transient R repository;
 
+  /** The entity manager. */
+  @PersistenceContext
+  protected transient EntityManager entityManager;
+
+  /** The number of entities written before the persistence context is flushed and cleared. */
+  @Value("${entity.service.batchSize:50}")
+  private transient int batchSize;
+
+  /** The number of rows fetched per round trip by streaming reads. */
+  @Value("${entity.service.fetchSize:100}")
+  private transient int fetchSize;
+
+  /** The entity class. */
+  private transient Class<T> entityClass;
+
+  /** The environment, holding the per entity type cache settings. */
+  @Autowired
+  private transient Environment environment;
+
+  /** The transaction manager, used to write in transactions of their own. */
+  @Autowired
+  private transient PlatformTransactionManager transactionManager;
+
+  /** The read through cache of entities by id, null when disabled. */
+  private transient EntityCache<T> cache;
+
+  /** The write behind buffer, null when disabled. */
+  private transient WriteBehindBuffer<T> writeBehind;
+
+  /** The key binding the pending writes of this service to the current transaction. */
+  private final transient Object pendingWritesKey = new Object();
+
+  /** The registry recording operation latencies and result sizes, null when disabled. */
+  private transient EntityMetricsRegistry metricsRegistry = EntityMetricsRegistry.getDefault();
+
+  /**
+   * Initialize the optional features configured for the entity type.
+   */
+  @PostConstruct
+  public void init() {
+    initCache();
+    initWriteBehind();
+  }
+
+  /**
+   * Flush pending writes when the service is destroyed.
+   */
+  @PreDestroy
+  public void destroy() {
+    disableWriteBehind();
+  }
+
+  /**
+   * Create the read through cache when configured for the entity type with 
+   * <code>entity.cache.ENTITY.maximumSize</code> and, optionally, 
+   * <code>entity.cache.ENTITY.ttlSeconds</code>, where ENTITY is the simple 
+   * name of the entity class.
+   */
+  private void initCache() {
+    final String prefix = "entity.cache." + getEntityClass().getSimpleName() + ".";
+    final int maximumSize = environment.getProperty(prefix + "maximumSize", Integer.class, 0);
+
+    if (maximumSize > 0) {
+      final long ttlSeconds = environment.getProperty(prefix + "ttlSeconds", Long.class,
+          DEFAULT_CACHE_TTL_SECONDS);
+      cache = new EntityCache<T>(maximumSize, ttlSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Enable write behind when configured for the entity type with 
+   * <code>entity.writeBehind.ENTITY.maxPending</code> and, optionally,
+   * <code>entity.writeBehind.ENTITY.flushIntervalMillis</code>, where ENTITY
+   * is the simple name of the entity class. Batches are the batch size.
+   */
+  private void initWriteBehind() {
+    final String prefix = "entity.writeBehind." + getEntityClass().getSimpleName() + ".";
+    final int maxPending = environment.getProperty(prefix + "maxPending", Integer.class, 0);
+
+    if (maxPending > 0) {
+      enableWriteBehind(Math.min(batchSize, maxPending), maxPending, environment
+          .getProperty(prefix + "flushIntervalMillis", Long.class, DEFAULT_FLUSH_INTERVAL_MILLIS));
+    }
+  }
+
+  /**
+   * Enable write behind: updates of entities with an id made through
+   * {@link #createOrUpdate(PersistedEntity)} are buffered, coalesced per
+   * entity, and written in batches, each in a transaction of its own.
+   * New entities are still written immediately, as they need an id.
+   * Buffered updates escape the caller's transaction: they are written even
+   * when it rolls back. Deleting an entity discards its pending update.
+   *
+   * @param flushSize the number of entities written per batch
+   * @param maxPending the maximum number of pending entities
+   * @param flushIntervalMillis the interval between periodic flushes, in milliseconds
+   */
+  public void enableWriteBehind(final int flushSize, final int maxPending,
+      final long flushIntervalMillis) {
+    disableWriteBehind();
+
+    final TransactionTemplate template = new TransactionTemplate(transactionManager);
+    writeBehind = new WriteBehindBuffer<T>(
+        batch -> template.execute(status -> createOrUpdateAll(batch)), flushSize, maxPending,
+        flushIntervalMillis);
+  }
+
+  /**
+   * Checks if write behind is enabled.
+   *
+   * @return true, if write behind is enabled
+   */
+  public boolean isWriteBehindEnabled() {
+    return writeBehind != null;
+  }
+
+  /**
+   * Disable write behind, flushing any pending writes. The buffer is drained
+   * before it is detached, and closed after, so writers still holding it 
+   * either have their writes flushed or write directly.
+   */
+  public void disableWriteBehind() {
+    final WriteBehindBuffer<T> buffer = writeBehind;
+
+    if (buffer != null) {
+      buffer.flush();
+      writeBehind = null;
+      buffer.close();
+    }
+  }
+
+  /**
+   * Write any pending write behind updates now.
+   */
+  public void flushWriteBehind() {
+    final WriteBehindBuffer<T> buffer = writeBehind;
+
+    if (buffer != null) {
+      buffer.flush();
+    }
+  }
+
+  /**
+   * Discard any pending write behind updates of the entities with the given
+   * ids, so deleted entities are not written back by a later flush.
+   *
+   * @param ids the ids
+   */
+  private void discardWriteBehind(final Collection<Long> ids) {
+    final WriteBehindBuffer<T> buffer = writeBehind;
+
+    if (buffer != null) {
+      buffer.discardAll(ids);
+    }
+  }
+
+  /**
+   * Sets the read through cache.
+   *
+   * @param cache the new cache, null to disable caching
+   */
+  public void setCache(final EntityCache<T> cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the read through cache statistics.
+   *
+   * @return the statistics, null when caching is disabled
+   */
+  public EntityCacheStatistics getCacheStatistics() {
+    return cache == null ? null : cache.getStatistics();
+  }
+
+  /**
+   * Sets the registry recording the latency and result size of 
+   * <code>createOrUpdate</code>, <code>readAll</code>, <code>readById</code>
+   * and <code>delete</code>; the default registry unless set.
+   *
+   * @param metricsRegistry the metrics registry, null to disable recording
+   */
+  public void setMetricsRegistry(final EntityMetricsRegistry metricsRegistry) {
+    this.metricsRegistry = metricsRegistry;
+  }
+
+  /**
+   * Gets the batch size used by bulk writes.
+   *
+   * @return the batch size
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the batch size used by bulk writes. Should match the
+   * <code>hibernate.jdbc.batch_size</code> setting.
+   *
+   * @param batchSize the new batch size
+   */
+  public void setBatchSize(final int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batch size must be greater than zero");
+    }
+
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Gets the fetch size used by streaming reads.
+   *
+   * @return the fetch size
+   */
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * Sets the fetch size used by streaming reads.
+   *
+   * @param fetchSize the new fetch size
+   */
+  public void setFetchSize(final int fetchSize) {
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("fetch size must be greater than zero");
+    }
+
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Gets the entity class managed by this service.
+   *
+   * @return the entity class
+   */
+  @SuppressWarnings("unchecked")
+  protected Class<T> getEntityClass() {
+    if (entityClass == null) {
+      entityClass = (Class<T>) GenericTypeResolver.resolveTypeArguments(getClass(),
+          AbstractEntityService.class)[0];
+    }
+
+    return entityClass;
+  }
+
+  /**
+   * Gets the entity name used in queries.
+   *
+   * @return the entity name
+   */
+  protected String getEntityName() {
+    return entityManager.getMetamodel().entity(getEntityClass()).getName();
+  }
+
   /**
    * @see net.ljcomputing.service.EntityService
    *    #createOrUpdate(net.ljcomputing.entity.PersistedEntity)
    */
   @Override
   public T createOrUpdate(final T entity) {
-    return repository.save(entity);
+    return measure(CREATE_OR_UPDATE, () -> save(entity), saved -> 1);
+  }
+
+  /**
+   * Save the entity, or buffer it when write behind is enabled and the
+   * entity has been saved before. A write finding the buffer closed, as 
+   * write behind is disabled, saves the entity directly.
+   *
+   * @param entity the entity
+   * @return the saved entity
+   */
+  private T save(final T entity) {
+    final WriteBehindBuffer<T> buffer = writeBehind;
+
+    if (buffer != null && entity.getId() != null && buffer.write(entity)) {
+      evict(entity.getId());
+      return entity;
+    }
+
+    final T saved = repository.save(entity);
+    evict(saved.getId());
+    return saved;
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#createOrUpdateAll(java.lang.Iterable)
+   */
+  @Override
+  @Transactional
+  public long createOrUpdateAll(final Iterable<T> entities) {
+    long count = 0;
+    boolean merged = false;
+
+    for (final T entity : entities) {
+      if (entity.getId() == null) {
+        entityManager.persist(entity);
+        written(entity.getId());
+      } else {
+        entityManager.merge(entity);
+        evictNow(entity.getId());
+        merged = true;
+      }
+
+      if (++count % batchSize == 0) {
+        flushAndClear();
+      }
+    }
+
+    flushAndClear();
+
+    if (merged) {
+      evictAllAfterCompletion();
+    }
+
+    return count;
   }
 
   /**
    * @see net.ljcomputing.service.EntityService#readAll()
    */
   @Override
+  @Transactional(readOnly = true)
   public List<T> readAll() {
-    return (List<T>) repository.findAll();
+    return measure(READ_ALL, () -> (List<T>) repository.findAll(), List::size);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readAll(java.util.function.Consumer)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public long readAll(final Consumer<? super T> consumer) {
+    return measure(READ_ALL, () -> scroll(
+        getSession().createQuery("from " + getEntityName() + " e order by e.id"), consumer),
+        Long::longValue);
   }
 
   /**
    * @see net.ljcomputing.service.EntityService#readById(java.lang.Long)
    */
   @Override
+  @Transactional(readOnly = true)
   public T readById(final Long id) {
-    return repository.findOne(id);
+    return measure(READ_BY_ID, () -> find(id), found -> found == null ? 0 : 1);
+  }
+
+  /**
+   * Find the entity, in the write behind buffer, the cache or the database.
+   *
+   * @param id the id
+   * @return the entity, null if not found
+   */
+  private T find(final Long id) {
+    final WriteBehindBuffer<T> buffer = writeBehind;
+    final T pending = buffer == null ? null : buffer.getPending(id);
+
+    if (pending != null) {
+      return pending;
+    }
+
+    if (cache == null) {
+      return repository.findOne(id);
+    }
+
+    T entity = cache.get(id);
+
+    if (entity == null) {
+      final long generation = cache.generation(id);
+      entity = repository.findOne(id);
+
+      if (entity != null) {
+        cache(entity, generation);
+      }
+    }
+
+    return entity;
+  }
+
+  /**
+   * Cache an entity read from the database, unless:
+   * <ul>
+   * <li>it was read from a replica, which may lag the primary: the stale state 
+   * would be seen by every thread, the writer included, until it expires;</li>
+   * <li>the current transaction wrote it, so the state is not committed yet;</li>
+   * <li>it was invalidated since the given generation was read, so the state 
+   * may predate a write committed while it was loaded.</li>
+   * </ul>
+   *
+   * @param entity the entity
+   * @param generation the cache generation of the id before the entity was read
+   */
+  private void cache(final T entity, final long generation) {
+    if (ReadWriteRoutingDataSource.isRoutedToReplica()) {
+      return;
+    }
+
+    final PendingWrites pending = getPendingWrites();
+
+    if (pending == null || !pending.contains(entity)) {
+      cache.put(entity, generation);
+    }
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readByIds(java.util.Collection)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Map<Long, T> readByIds(final Collection<Long> ids) {
+    final Map<Long, T> entities = new HashMap<Long, T>();
+    final List<Long> missing = new ArrayList<Long>();
+    final SessionImplementor session = (SessionImplementor) getSession();
+    final EntityPersister persister = getPersister(session);
+
+    final Map<Long, Long> generations = new HashMap<Long, Long>();
+    final WriteBehindBuffer<T> buffer = writeBehind;
+
+    for (final Long id : new LinkedHashSet<Long>(ids)) {
+      T entity = buffer == null ? null : buffer.getPending(id);
+
+      if (entity == null) {
+        entity = getManaged(session, persister, id);
+      }
+
+      if (entity == null && cache != null) {
+        entity = cache.get(id);
+
+        if (entity == null) {
+          generations.put(id, cache.generation(id));
+        }
+      }
+
+      if (entity == null) {
+        missing.add(id);
+      } else {
+        entities.put(id, entity);
+      }
+    }
+
+    for (final List<Long> chunk : InListChunks.of(missing)) {
+      for (final T entity : repository.findAll(chunk)) {
+        entities.put(entity.getId(), entity);
+
+        if (cache != null) {
+          cache(entity, generations.get(entity.getId()));
+        }
+      }
+    }
+
+    return entities;
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#updateById(java.lang.Long, java.util.Map)
+   */
+  @Override
+  @Transactional
+  public int updateById(final Long id, final Map<String, ?> changes) {
+    final int updated = update("id", id, changes);
+
+    final SessionImplementor session = (SessionImplementor) getSession();
+    final T managed = getManaged(session, getPersister(session), id);
+
+    if (managed != null) {
+      entityManager.detach(managed);
+    }
+
+    evict(id);
+
+    return updated;
+  }
+
+  /**
+   * Update the entity in a single statement keyed on the uuid. A managed
+   * copy of the entity is detached and its id evicted from the cache; 
+   * without one, the cache drops the entity by uuid.
+   *
+   * @see net.ljcomputing.service.EntityService#updateByUuid(java.lang.String, java.util.Map)
+   */
+  @Override
+  @Transactional
+  public int updateByUuid(final String uuid, final Map<String, ?> changes) {
+    final int updated = update("uuid", uuid, changes);
+    final T managed = getManagedByUuid(uuid);
+
+    if (managed == null) {
+      evictUuid(uuid);
+    } else {
+      entityManager.detach(managed);
+      evict(managed.getId());
+    }
+
+    return updated;
+  }
+
+  /**
+   * Update the given attributes of the entity with the given key in a single
+   * statement, along with the modified time stamp. Attribute names are 
+   * checked against the entity metamodel, and sorted so the same set of
+   * attributes always produces the same statement.
+   *
+   * @param key the key attribute, id or uuid
+   * @param keyValue the key value
+   * @param changes the new values, by attribute name
+   * @return the number of rows updated
+   */
+  private int update(final String key, final Object keyValue, final Map<String, ?> changes) {
+    if (changes.isEmpty()) {
+      throw new IllegalArgumentException("no changes given");
+    }
+
+    flushWriteBehind();
+
+    final EntityType<T> entityType = entityManager.getMetamodel().entity(getEntityClass());
+    final Map<String, Object> values = new TreeMap<String, Object>(changes);
+    final StringBuilder jpql = new StringBuilder("update ").append(entityType.getName())
+        .append(" e set e.modifiedTs = :modifiedTs");
+    int index = 0;
+
+    for (final String attribute : values.keySet()) {
+      if (RESERVED_ATTRIBUTES.contains(attribute)
+          || entityType.getAttribute(attribute).isCollection()) {
+        throw new IllegalArgumentException("attribute cannot be updated: " + attribute);
+      }
+
+      jpql.append(", e.").append(attribute).append(" = :p").append(index++);
+    }
+
+    jpql.append(" where e.").append(key).append(" = :key");
+
+    final javax.persistence.Query query = entityManager.createQuery(jpql.toString())
+        .setParameter("modifiedTs", EntityClocks.get().currentTimeMillis())
+        .setParameter("key", keyValue);
+    index = 0;
+
+    for (final Object value : values.values()) {
+      query.setParameter("p" + index++, value);
+    }
+
+    return query.executeUpdate();
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readByUuid(java.lang.String)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public T readByUuid(final String uuid) {
+    return repository.findByUuid(uuid);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readByUuids(java.util.Collection)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Map<String, T> readByUuids(final Collection<String> uuids) {
+    final Map<String, T> entities = new HashMap<String, T>();
+
+    for (final List<String> chunk : InListChunks.of(uuids)) {
+      for (final T entity : repository.findByUuidIn(chunk)) {
+        entities.put(entity.getUuid(), entity);
+      }
+    }
+
+    return entities;
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readPageAfter(java.lang.Long, int)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<T> readPageAfter(final Long lastId, final int size) {
+    final List<T> rows = repository.findByIdGreaterThanOrderByIdAsc(
+        lastId == null ? Long.MIN_VALUE : lastId, pageLimit(size));
+    return KeysetPage.of(rows, size, false);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService
+   *    #readPageAfter(java.lang.Long, java.lang.Long, int)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<T> readPageAfter(final Long lastModifiedTs, final Long lastId,
+      final int size) {
+    final List<T> rows = repository.findModifiedAfter(
+        lastModifiedTs == null ? Long.MIN_VALUE : lastModifiedTs,
+        lastId == null ? Long.MIN_VALUE : lastId, pageLimit(size));
+    return KeysetPage.of(rows, size, true);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService
+   *    #readModifiedSince(long, java.lang.Long, java.util.function.Consumer)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public long readModifiedSince(final long modifiedTs, final Long afterId,
+      final Consumer<? super T> consumer) {
+    final Query query = getSession().createQuery("from " + getEntityName()
+        + " e where e.modifiedTs >= :modifiedTs and (e.modifiedTs > :modifiedTs or e.id > :id)"
+        + " order by e.modifiedTs asc, e.id asc")
+        .setParameter("modifiedTs", modifiedTs)
+        .setParameter("id", afterId == null ? Long.MIN_VALUE : afterId);
+    return scroll(query, consumer);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readModifiedSince(long, java.lang.Long, int)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<T> readModifiedSince(final long modifiedTs, final Long afterId,
+      final int size) {
+    return readPageAfter(modifiedTs, afterId, size);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#readPage(java.lang.String, int)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public KeysetPage<T> readPage(final String continuationToken, final int size) {
+    final ContinuationToken token = ContinuationToken.parse(continuationToken);
+
+    return token.isKeyedByModified() ? readPageAfter(token.getModifiedTs(), token.getId(), size)
+        : readPageAfter(token.getId(), size);
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#deleteByIds(java.util.Collection)
+   */
+  @Override
+  public long deleteByIds(final Collection<Long> ids) {
+    flushWriteBehind();
+
+    final TransactionTemplate template = new TransactionTemplate(transactionManager);
+    long total = 0;
+
+    for (final List<Long> chunk : InListChunks.of(ids)) {
+      total += template.execute(status -> deleteChunk(chunk));
+    }
+
+    return total;
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#deleteModifiedBefore(long)
+   */
+  @Override
+  public long deleteModifiedBefore(final long modifiedTs) {
+    return deleteWhere(" where e.modifiedTs < :modifiedTs",
+        Collections.<String, Object>singletonMap("modifiedTs", modifiedTs));
+  }
+
+  /**
+   * @see net.ljcomputing.service.EntityService#deleteAll()
+   */
+  @Override
+  public long deleteAll() {
+    return deleteWhere("", Collections.<String, Object>emptyMap());
   }
 
   /**
@@ -68,7 +773,419 @@ public abstract class AbstractEntityService<T extends PersistedEntity, R extends
    */
   @Override
   public void delete(final T entity) {
-    repository.delete(entity);
+    measure(DELETE, () -> {
+      discardWriteBehind(Collections.singleton(entity.getId()));
+      repository.delete(entity);
+      evict(entity.getId());
+      return entity;
+    }, deleted -> 1);
+  }
+
+  /**
+   * Call an operation, recording its latency and result size, or that it
+   * failed, in the operation metrics of the entity type.
+   *
+   * @param <V> the result type
+   * @param operation the operation name
+   * @param call the operation
+   * @param resultSize the number of entities returned or written, given the result
+   * @return the result
+   */
+  private <V> V measure(final String operation, final Supplier<V> call,
+      final ToLongFunction<? super V> resultSize) {
+    final EntityMetricsRegistry registry = metricsRegistry;
+
+    if (registry == null) {
+      return call.get();
+    }
+
+    final OperationMetrics metrics = registry.getOperation(getEntityClass(), operation);
+    final long start = System.nanoTime();
+    final V result;
+
+    try {
+      result = call.get();
+    } catch (RuntimeException | Error exception) { //NOPMD
+      metrics.recordError();
+      throw exception;
+    }
+
+    metrics.record(System.nanoTime() - start, resultSize.applyAsLong(result));
+    return result;
+  }
+
+  /**
+   * Limit for a keyset page query; one row more than the page size is read
+   * to find out if there is a next page.
+   *
+   * @param size the page size
+   * @return the limit
+   */
+  private static Pageable pageLimit(final int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("page size must be greater than zero");
+    }
+
+    return new PageRequest(0, size + 1);
+  }
+
+  /**
+   * Drop the entity with the given id from the cache, now and again when the
+   * current transaction completes, so a concurrent read cannot cache the state
+   * from before the transaction. Until then, reads in the transaction do not 
+   * cache the uncommitted state.
+   *
+   * @param id the id
+   */
+  protected void evict(final Long id) {
+    if (id != null) {
+      evict(Collections.singletonList(id));
+    }
+  }
+
+  /**
+   * Drop the entities with the given ids from the cache, now and again when
+   * the current transaction completes.
+   *
+   * @param ids the ids
+   * @see #evict(Long)
+   */
+  protected void evict(final Collection<Long> ids) {
+    if (cache == null) {
+      return;
+    }
+
+    for (final Long id : ids) {
+      cache.invalidate(id);
+    }
+
+    final PendingWrites pending = bindPendingWrites();
+
+    if (pending != null) {
+      pending.ids.addAll(ids);
+    }
+  }
+
+  /**
+   * Record an entity written by the current transaction that cannot be in the
+   * cache yet, such as a new one, so reads in the transaction do not cache it.
+   *
+   * @param id the id
+   */
+  private void written(final Long id) {
+    if (cache == null || id == null) {
+      return;
+    }
+
+    final PendingWrites pending = bindPendingWrites();
+
+    if (pending != null) {
+      pending.ids.add(id);
+    }
+  }
+
+  /**
+   * Drop the entity with the given uuid from the cache, now and again when
+   * the current transaction completes.
+   *
+   * @param uuid the uuid
+   * @see #evict(Long)
+   */
+  protected void evictUuid(final String uuid) {
+    if (cache == null) {
+      return;
+    }
+
+    cache.invalidateUuid(uuid);
+
+    final PendingWrites pending = bindPendingWrites();
+
+    if (pending != null) {
+      pending.uuids.add(uuid);
+    }
+  }
+
+  /**
+   * Drop the entity with the given id from the cache.
+   *
+   * @param id the id
+   */
+  protected void evictNow(final Long id) {
+    if (cache != null && id != null) {
+      cache.invalidate(id);
+    }
+  }
+
+  /**
+   * Drop all entities from the cache when the current transaction completes,
+   * or now when there is no transaction. Used by bulk writes, where 
+   * registering one callback per entity would cost too much.
+   */
+  protected void evictAllAfterCompletion() {
+    if (cache == null) {
+      return;
+    }
+
+    final PendingWrites pending = bindPendingWrites();
+
+    if (pending == null) {
+      cache.invalidateAll();
+    } else {
+      pending.all = true;
+    }
+  }
+
+  /**
+   * Get the writes of the current transaction to entities of this service.
+   *
+   * @return the pending writes, null if none
+   */
+  private PendingWrites getPendingWrites() {
+    return (PendingWrites) TransactionSynchronizationManager.getResource(pendingWritesKey);
+  }
+
+  /**
+   * Get the writes of the current transaction to entities of this service, 
+   * binding them to the transaction on the first write.
+   *
+   * @return the pending writes, null when there is no transaction
+   */
+  private PendingWrites bindPendingWrites() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return null;
+    }
+
+    PendingWrites pending = getPendingWrites();
+
+    if (pending == null) {
+      pending = new PendingWrites();
+      TransactionSynchronizationManager.bindResource(pendingWritesKey, pending);
+      TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+
+    return pending;
+  }
+
+  /**
+   * The entities written by a transaction, dropped from the cache again when
+   * it completes. Bound to the transaction, and unbound while it is suspended,
+   * like a transactional resource.
+   */
+  private final class PendingWrites extends TransactionSynchronizationAdapter {
+
+    /** The ids of the written entities. */
+    private final Set<Long> ids = new HashSet<Long>();
+
+    /** The uuids of the written entities. */
+    private final Set<String> uuids = new HashSet<String>();
+
+    /** True if the transaction may have written any entity. */
+    private boolean all;
+
+    /**
+     * Check if the transaction wrote the entity.
+     *
+     * @param entity the entity
+     * @return true if written
+     */
+    private boolean contains(final T entity) {
+      return all || ids.contains(entity.getId()) || uuids.contains(entity.getUuid());
+    }
+
+    /**
+     * @see org.springframework.transaction.support.TransactionSynchronization#suspend()
+     */
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResource(pendingWritesKey);
+    }
+
+    /**
+     * @see org.springframework.transaction.support.TransactionSynchronization#resume()
+     */
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(pendingWritesKey, this);
+    }
+
+    /**
+     * @see org.springframework.transaction.support.TransactionSynchronization#afterCompletion(int)
+     */
+    @Override
+    public void afterCompletion(final int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(pendingWritesKey);
+
+      if (all) {
+        cache.invalidateAll();
+        return;
+      }
+
+      for (final Long id : ids) {
+        cache.invalidate(id);
+      }
+
+      for (final String uuid : uuids) {
+        cache.invalidateUuid(uuid);
+      }
+    }
+  }
+
+  /**
+   * Gets the Hibernate persister of the entity.
+   *
+   * @param session the session
+   * @return the entity persister
+   */
+  private EntityPersister getPersister(final SessionImplementor session) {
+    return session.getFactory().getEntityPersister(getEntityClass().getName());
+  }
+
+  /**
+   * Gets the entity with the given id from the persistence context, without
+   * reading the database.
+   *
+   * @param session the session
+   * @param persister the entity persister
+   * @param id the id
+   * @return the managed entity, null if not in the persistence context
+   */
+  private T getManaged(final SessionImplementor session, final EntityPersister persister,
+      final Long id) {
+    return getEntityClass().cast(
+        session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister)));
+  }
+
+  /**
+   * Gets the entity with the given uuid from the persistence context, without
+   * reading the database.
+   *
+   * @param uuid the uuid
+   * @return the managed entity, null if not in the persistence context
+   */
+  private T getManagedByUuid(final String uuid) {
+    final SessionImplementor session = (SessionImplementor) getSession();
+
+    for (final Object entity : session.getPersistenceContext().getEntitiesByKey().values()) {
+      if (getEntityClass().isInstance(entity)
+          && uuid.equals(getEntityClass().cast(entity).getUuid())) {
+        return getEntityClass().cast(entity);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Gets the Hibernate session bound to the current transaction.
+   *
+   * @return the session
+   */
+  protected Session getSession() {
+    return entityManager.unwrap(Session.class);
+  }
+
+  /**
+   * Run the given query through a forward only cursor, handing each entity
+   * to the consumer and evicting it from the session afterwards, unless the
+   * caller already had it managed. The cursor is closed when the results are
+   * exhausted or the consumer fails.
+   *
+   * @param query the query returning entities
+   * @param consumer the consumer of each entity
+   * @return the number of entities read
+   */
+  @SuppressWarnings("unchecked")
+  protected long scroll(final Query query, final Consumer<? super T> consumer) {
+    final ManagedEntities managed = new ManagedEntities(getSession());
+    final ScrollableResults results = query.setFetchSize(fetchSize).setReadOnly(true)
+        .setCacheMode(CacheMode.IGNORE).scroll(ScrollMode.FORWARD_ONLY);
+    long count = 0;
+
+    try {
+      while (results.next()) {
+        final T entity = (T) results.get(0);
+        consumer.accept(entity);
+        managed.evictLoaded(entity);
+        count++;
+      }
+    } finally {
+      results.close();
+    }
+
+    return count;
+  }
+
+  /**
+   * Delete the entities with the given ids in one statement, detaching any
+   * managed copies and dropping them from the cache and the write behind
+   * buffer.
+   *
+   * @param ids the ids, padded to a fixed size by {@link InListChunks}
+   * @return the number of rows deleted
+   */
+  private int deleteChunk(final List<Long> ids) {
+    final int deleted = entityManager
+        .createQuery("delete from " + getEntityName() + " e where e.id in :ids")
+        .setParameter("ids", ids).executeUpdate();
+    final SessionImplementor session = (SessionImplementor) getSession();
+    final EntityPersister persister = getPersister(session);
+
+    for (final Long id : ids) {
+      final T managed = getManaged(session, persister, id);
+
+      if (managed != null) {
+        entityManager.detach(managed);
+      }
+    }
+
+    evict(ids);
+    discardWriteBehind(ids);
+
+    return deleted;
+  }
+
+  /**
+   * Delete the entities matching the given condition, a chunk of ids at a
+   * time, until none are left.
+   *
+   * @param condition the JPQL condition on the entity alias e, empty for all entities
+   * @param parameters the condition parameters, by name
+   * @return the number of rows deleted
+   */
+  private long deleteWhere(final String condition, final Map<String, Object> parameters) {
+    flushWriteBehind();
+
+    final String jpql = "select e.id from " + getEntityName() + " e" + condition
+        + " order by e.id";
+    final TransactionTemplate template = new TransactionTemplate(transactionManager);
+    long total = 0;
+    int deleted;
+
+    do {
+      deleted = template.execute(status -> {
+        final javax.persistence.Query query = entityManager.createQuery(jpql)
+            .setMaxResults(InListChunks.MAXIMUM_SIZE);
+
+        for (final Map.Entry<String, Object> parameter : parameters.entrySet()) {
+          query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<Long> ids = query.getResultList();
+        return ids.isEmpty() ? 0 : deleteChunk(InListChunks.of(ids).get(0));
+      });
+      total += deleted;
+    } while (deleted > 0);
+
+    return total;
+  }
+
+  /**
+   * Flush pending writes to the database and clear the persistence context.
+   */
+  protected void flushAndClear() {
+    entityManager.flush();
+    entityManager.clear();
   }
 
 }
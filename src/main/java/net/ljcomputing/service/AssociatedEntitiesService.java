@@ -16,7 +16,9 @@
 
 package net.ljcomputing.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import net.ljcomputing.entity.PersistedEntity;
 
@@ -38,6 +40,35 @@ public interface AssociatedEntitiesService<T extends PersistedEntity, S extends
    * @return the group member
    */
   R createAssociation(T group, S member);
+
+  /**
+   * Creates the associations between the given group and the given members,
+   * writing them in JDBC batches. The group members created are detached;
+   * other entities held by the caller stay managed.
+   *
+   * @param group the group
+   * @param members the members
+   * @return the number of group members created
+   */
+  long createAssociations(T group, Collection<S> members);
+
+  /**
+   * Count the associated members of a group, without loading them.
+   *
+   * @param group the group
+   * @return the number of associated members of the group
+   */
+  long countAssociation(T group);
+
+  /**
+   * Checks if the given member is associated with the given group, without
+   * loading the group member.
+   *
+   * @param group the group
+   * @param member the member
+   * @return true, if the member is associated with the group
+   */
+  boolean isAssociated(T group, S member);
   
   /**
    * List associated members of a group. 
@@ -47,6 +78,27 @@ public interface AssociatedEntitiesService<T extends PersistedEntity, S extends
    * @return the list of associated members of the group
    */
   List<R> listAssociation(T group);
+
+  /**
+   * List a page of associated members of a group, in group member id order.
+   * For groups with a large membership.
+   *
+   * @param group the group
+   * @param lastId the last group member id of the previous page, null for the first page
+   * @param size the page size
+   * @return the page of associated members of the group
+   */
+  KeysetPage<R> listAssociation(T group, Long lastId, int size);
+
+  /**
+   * Stream the associated members of a group, in group member id order,
+   * without holding them all in memory.
+   *
+   * @param group the group
+   * @param consumer the consumer of each group member
+   * @return the number of group members read
+   */
+  long listAssociation(T group, Consumer<? super R> consumer);
   
   /**
    * Removes the association between the given group and the given member. 
@@ -55,4 +107,15 @@ public interface AssociatedEntitiesService<T extends PersistedEntity, S extends
    * @param groupMember the group member
    */
   void removeAssociation(R groupMember);
+
+  /**
+   * Removes the associations between the given group and the given members,
+   * using bulk deletes rather than loading each group member. The removed
+   * group members held by the caller are detached; other entities stay managed.
+   *
+   * @param group the group
+   * @param members the members
+   * @return the number of group members removed
+   */
+  long removeAssociations(T group, Collection<S> members);
 }
@@ -0,0 +1,63 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import net.ljcomputing.entity.PersistedEntity;
+
+/**
+ * Asynchronous companion of {@link EntityService}. Each call runs in its own
+ * transaction on an executor, so the caller is not blocked on JDBC.
+ *
+ * @author James G. Willmore
+ * @param <T> the PersitedEntity type
+ */
+public interface AsyncEntityService<T extends PersistedEntity> {
+
+  /**
+   * Creates or updates the given entity.
+   *
+   * @param entity the entity
+   * @return the future of the saved entity
+   */
+  CompletableFuture<T> createOrUpdate(T entity);
+
+  /**
+   * Read all the entities of a given type.
+   *
+   * @return the future of the list
+   */
+  CompletableFuture<List<T>> readAll();
+
+  /**
+   * Read an entity by id.
+   *
+   * @param id the id
+   * @return the future of the entity, completed with null if not found
+   */
+  CompletableFuture<T> readById(Long id);
+
+  /**
+   * Delete the given entity.
+   *
+   * @param entity the entity
+   * @return the future completed once the entity is deleted
+   */
+  CompletableFuture<Void> delete(T entity);
+}
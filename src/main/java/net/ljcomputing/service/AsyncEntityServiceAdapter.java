@@ -0,0 +1,225 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.ljcomputing.entity.PersistedEntity;
+
+/**
+ * Runs the calls of an {@link EntityService} asynchronously, each in its own
+ *  transaction, on the given executor.
+ *  
+ * <p>The number of calls in flight is limited, normally to the size of the
+ *  connection pool, so queued work waits here rather than on the pool. When
+ *  the limit is reached the caller is not blocked: the returned future has
+ *  already failed with a {@link RejectedExecutionException}, and the call 
+ *  may be retried later.</p>
+ *  
+ * <p>For example:</p>
+ * <pre>
+ * &#64;Bean
+ * public AsyncEntityService&lt;Person&gt; asyncPersonService(PersonService personService,
+ *     PlatformTransactionManager transactionManager, DataSource dataSource) {
+ *   final int poolSize = AsyncEntityServiceAdapter.poolSize(dataSource);
+ *   return new AsyncEntityServiceAdapter&lt;Person&gt;(personService, transactionManager,
+ *       AsyncEntityServiceAdapter.defaultExecutor(poolSize), poolSize);
+ * }
+ * </pre>
+ *
+ * @author James G. Willmore
+ * @param <T> the PersitedEntity type
+ */
+public class AsyncEntityServiceAdapter<T extends PersistedEntity>
+    implements AsyncEntityService<T> {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncEntityServiceAdapter.class);
+
+  /** The delegate. */
+  private final EntityService<T> delegate;
+
+  /** The executor. */
+  private final Executor executor;
+
+  /** The slots for calls in flight. */
+  private final Semaphore slots;
+
+  /** The read write transaction template. */
+  private final TransactionTemplate writeTemplate;
+
+  /** The read only transaction template. */
+  private final TransactionTemplate readTemplate;
+
+  /**
+   * Instantiates a new async entity service adapter.
+   *
+   * @param delegate the delegate
+   * @param transactionManager the transaction manager
+   * @param executor the executor
+   * @param maxConcurrency the maximum number of calls in flight
+   */
+  public AsyncEntityServiceAdapter(final EntityService<T> delegate,
+      final PlatformTransactionManager transactionManager, final Executor executor,
+      final int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maximum concurrency must be greater than zero");
+    }
+
+    this.delegate = delegate;
+    this.executor = executor;
+    this.slots = new Semaphore(maxConcurrency);
+    this.writeTemplate = new TransactionTemplate(transactionManager);
+    this.readTemplate = new TransactionTemplate(transactionManager);
+    this.readTemplate.setReadOnly(true);
+  }
+
+  /**
+   * @see net.ljcomputing.service.AsyncEntityService
+   *    #createOrUpdate(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  public CompletableFuture<T> createOrUpdate(final T entity) {
+    return submit(writeTemplate, () -> delegate.createOrUpdate(entity));
+  }
+
+  /**
+   * @see net.ljcomputing.service.AsyncEntityService#readAll()
+   */
+  @Override
+  public CompletableFuture<List<T>> readAll() {
+    return submit(readTemplate, () -> delegate.readAll());
+  }
+
+  /**
+   * @see net.ljcomputing.service.AsyncEntityService#readById(java.lang.Long)
+   */
+  @Override
+  public CompletableFuture<T> readById(final Long id) {
+    return submit(readTemplate, () -> delegate.readById(id));
+  }
+
+  /**
+   * @see net.ljcomputing.service.AsyncEntityService
+   *    #delete(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  public CompletableFuture<Void> delete(final T entity) {
+    return submit(writeTemplate, () -> {
+      delegate.delete(entity);
+      return null;
+    });
+  }
+
+  /**
+   * Run the work in a transaction on the executor when a slot is free,
+   * without blocking the caller otherwise.
+   *
+   * @param <V> the result type
+   * @param template the transaction template
+   * @param work the work
+   * @return the future of the result
+   */
+  private <V> CompletableFuture<V> submit(final TransactionTemplate template,
+      final Supplier<V> work) {
+    if (!slots.tryAcquire()) {
+      return failed(new RejectedExecutionException("no free slot, too many calls in flight"));
+    }
+
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return template.execute(status -> work.get());
+        } finally {
+          slots.release();
+        }
+      }, executor);
+    } catch (RejectedExecutionException exception) {
+      slots.release();
+      return failed(exception);
+    }
+  }
+
+  /**
+   * Create a future failed with the given exception.
+   *
+   * @param <V> the result type
+   * @param exception the exception
+   * @return the failed future
+   */
+  private static <V> CompletableFuture<V> failed(final Throwable exception) {
+    final CompletableFuture<V> future = new CompletableFuture<V>();
+    future.completeExceptionally(exception);
+    return future;
+  }
+
+  /**
+   * Gets the maximum size of the connection pool behind the data source.
+   *
+   * @param dataSource the data source
+   * @return the maximum pool size
+   */
+  public static int poolSize(final DataSource dataSource) {
+    try {
+      if (dataSource.isWrapperFor(HikariDataSource.class)) {
+        return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+      }
+    } catch (SQLException exception) {
+      LOGGER.warn("Could not read the pool size of the data source:", exception);
+    }
+
+    throw new IllegalArgumentException("not a HikariCP data source: " + dataSource);
+  }
+
+  /**
+   * Create the default executor: a virtual thread per task executor when
+   * running on JDK 21 or later, otherwise a fixed pool of the given number of
+   * threads.
+   *
+   * @param threads the number of threads when virtual threads are not available
+   * @return the executor service
+   */
+  public static ExecutorService defaultExecutor(final int threads) {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException 
+        | InvocationTargetException exception) {
+      LOGGER.debug("virtual threads not available, using a fixed thread pool: {}",
+          exception.toString());
+      return Executors.newFixedThreadPool(threads);
+    }
+  }
+}
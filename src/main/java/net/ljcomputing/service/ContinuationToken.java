@@ -0,0 +1,127 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.io.Serializable;
+
+/**
+ * Position of the last entity of a keyset page. The token is handed to
+ *  clients as an opaque string and used to seek to the next page.
+ *
+ * @author James G. Willmore
+ */
+public final class ContinuationToken implements Serializable {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 5233755766669584593L;
+
+  /** The prefix of tokens keyed by id. */
+  private static final String ID_PREFIX = "id";
+
+  /** The prefix of tokens keyed by modified time stamp and id. */
+  private static final String MODIFIED_PREFIX = "modified";
+
+  /** The separator of the token parts. */
+  private static final char SEPARATOR = ':';
+
+  /** The last modified time stamp, null when keyed by id only. */
+  private final Long modifiedTs;
+
+  /** The last id. */
+  private final Long id;
+
+  /**
+   * Instantiates a new continuation token.
+   *
+   * @param modifiedTs the last modified time stamp, null when keyed by id only
+   * @param id the last id
+   */
+  public ContinuationToken(final Long modifiedTs, final Long id) {
+    if (id == null) {
+      throw new IllegalArgumentException("id is required");
+    }
+
+    this.modifiedTs = modifiedTs;
+    this.id = id;
+  }
+
+  /**
+   * Gets the last modified time stamp.
+   *
+   * @return the last modified time stamp, null when keyed by id only
+   */
+  public Long getModifiedTs() {
+    return modifiedTs;
+  }
+
+  /**
+   * Gets the last id.
+   *
+   * @return the last id
+   */
+  public Long getId() {
+    return id;
+  }
+
+  /**
+   * Checks if the token is keyed by modified time stamp and id.
+   *
+   * @return true, if keyed by modified time stamp and id
+   */
+  public boolean isKeyedByModified() {
+    return modifiedTs != null;
+  }
+
+  /**
+   * Parses an encoded token.
+   *
+   * @param token the encoded token
+   * @return the continuation token
+   */
+  public static ContinuationToken parse(final String token) {
+    if (token == null) {
+      throw new IllegalArgumentException("token is required");
+    }
+
+    final String[] parts = token.split(String.valueOf(SEPARATOR));
+
+    try {
+      if (parts.length == 2 && ID_PREFIX.equals(parts[0])) {
+        return new ContinuationToken(null, Long.valueOf(parts[1]));
+      }
+
+      if (parts.length == 3 && MODIFIED_PREFIX.equals(parts[0])) {
+        return new ContinuationToken(Long.valueOf(parts[1]), Long.valueOf(parts[2]));
+      }
+    } catch (NumberFormatException exception) {
+      throw new IllegalArgumentException("malformed continuation token: " + token, exception);
+    }
+
+    throw new IllegalArgumentException("malformed continuation token: " + token);
+  }
+
+  /**
+   * Encodes the token.
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return isKeyedByModified() ? MODIFIED_PREFIX + SEPARATOR + modifiedTs + SEPARATOR + id
+        : ID_PREFIX + SEPARATOR + id;
+  }
+}
@@ -16,7 +16,10 @@
 
 package net.ljcomputing.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import net.ljcomputing.entity.PersistedEntity;
 
@@ -36,6 +39,39 @@ public interface EntityService<T extends PersistedEntity> {
    */
   T createOrUpdate(T entity);
 
+  /**
+   * Creates or updates the given entities in JDBC batches. The persistence
+   * context is flushed and cleared after each batch, so entities passed in
+   * are detached once this method returns.
+   *
+   * @param entities the entities
+   * @return the number of entities written
+   */
+  long createOrUpdateAll(Iterable<T> entities);
+
+  /**
+   * Update the given attributes of the entity with the given id in a single
+   * statement, without reading the entity first. The modified time stamp is
+   * set as by {@link PersistedEntity#modifiedAt()}; the id, uuid and time
+   * stamps cannot be changed.
+   *
+   * @param id the id
+   * @param changes the new values, by attribute name
+   * @return the number of rows updated
+   */
+  int updateById(Long id, Map<String, ?> changes);
+
+  /**
+   * Update the given attributes of the entity with the given uuid in a single
+   * statement, without reading the entity first.
+   *
+   * @param uuid the uuid
+   * @param changes the new values, by attribute name
+   * @return the number of rows updated
+   * @see #updateById(Long, Map)
+   */
+  int updateByUuid(String uuid, Map<String, ?> changes);
+
   /**
    * Read all the entities of a given type.
    *
@@ -43,6 +79,16 @@ public interface EntityService<T extends PersistedEntity> {
    */
   List<T> readAll();
 
+  /**
+   * Read all the entities of a given type, in id order, without holding the
+   * whole table in memory. Rows are read through a forward only cursor and
+   * each entity is detached once the consumer returns.
+   *
+   * @param consumer the consumer of each entity
+   * @return the number of entities read
+   */
+  long readAll(Consumer<? super T> consumer);
+
   /**
    * Read an entity by id.
    *
@@ -51,10 +97,128 @@ public interface EntityService<T extends PersistedEntity> {
    */
   T readById(Long id);
 
+  /**
+   * Read the entities with the given ids. Entities pending in the write 
+   * behind buffer, or already in the persistence context or cache, are not
+   * read again; the rest are read in chunks of at most 
+   * {@link InListChunks#MAXIMUM_SIZE} ids per query.
+   *
+   * @param ids the ids
+   * @return the entities found, keyed by id
+   */
+  Map<Long, T> readByIds(Collection<Long> ids);
+
+  /**
+   * Read an entity by uuid.
+   *
+   * @param uuid the uuid
+   * @return the entity, null if not found
+   */
+  T readByUuid(String uuid);
+
+  /**
+   * Read the entities with the given uuids, in chunks of at most 
+   * {@link InListChunks#MAXIMUM_SIZE} uuids per query.
+   *
+   * @param uuids the uuids
+   * @return the entities found, keyed by uuid
+   */
+  Map<String, T> readByUuids(Collection<String> uuids);
+
+  /**
+   * Read a page of entities, in id order, following the given id.
+   *
+   * @param lastId the last id of the previous page, null for the first page
+   * @param size the page size
+   * @return the page
+   */
+  KeysetPage<T> readPageAfter(Long lastId, int size);
+
+  /**
+   * Read a page of entities, in modified time stamp and id order, following 
+   * the given modified time stamp and id.
+   *
+   * @param lastModifiedTs the last modified time stamp of the previous page, 
+   *    null for the first page
+   * @param lastId the last id of the previous page, null for the first page
+   * @param size the page size
+   * @return the page
+   */
+  KeysetPage<T> readPageAfter(Long lastModifiedTs, Long lastId, int size);
+
+  /**
+   * Read, in modified time stamp and id order, the entities modified at or
+   * after the given time stamp, without holding them all in memory. Used to
+   * feed changes to downstream consumers incrementally: a consumer records
+   * the modified time stamp and id of the last entity it handled, and 
+   * resumes from that checkpoint, so entities sharing a time stamp are not
+   * missed.
+   * 
+   * <p>Time stamps are taken before commit, so a transaction committing late
+   * can make rows appear behind a checkpoint. Consumers that cannot miss a
+   * change should resume a safety window before their checkpoint and handle
+   * entities idempotently.</p>
+   *
+   * @param modifiedTs the modified time stamp to read from
+   * @param afterId the id of the last entity read with the given time stamp, 
+   *    null to read all entities with the given time stamp
+   * @param consumer the consumer of each entity
+   * @return the number of entities read
+   */
+  long readModifiedSince(long modifiedTs, Long afterId, Consumer<? super T> consumer);
+
+  /**
+   * Read a page of the entities modified at or after the given time stamp.
+   *
+   * @param modifiedTs the modified time stamp to read from
+   * @param afterId the id of the last entity read with the given time stamp, 
+   *    null to read all entities with the given time stamp
+   * @param size the page size
+   * @return the page
+   * @see #readModifiedSince(long, Long, Consumer)
+   */
+  KeysetPage<T> readModifiedSince(long modifiedTs, Long afterId, int size);
+
+  /**
+   * Read the page following the one that returned the given continuation token.
+   *
+   * @param continuationToken the continuation token
+   * @param size the page size
+   * @return the page
+   */
+  KeysetPage<T> readPage(String continuationToken, int size);
+
   /**
    * Delete the given etity.
    *
    * @param entity the entity
    */
   void delete(T entity);
+
+  /**
+   * Delete the entities with the given ids, with one statement per chunk of
+   * at most {@link InListChunks#MAXIMUM_SIZE} ids. Each chunk is committed 
+   * on its own, unless called within a transaction, which the chunks join.
+   *
+   * @param ids the ids
+   * @return the number of entities deleted
+   */
+  long deleteByIds(Collection<Long> ids);
+
+  /**
+   * Delete the entities last modified before the given time stamp, in 
+   * chunks committed as for {@link #deleteByIds(Collection)}.
+   *
+   * @param modifiedTs the modified time stamp
+   * @return the number of entities deleted
+   */
+  long deleteModifiedBefore(long modifiedTs);
+
+  /**
+   * Delete all the entities of a given type, in chunks committed as for
+   * {@link #deleteByIds(Collection)}.
+   *
+   * @return the number of entities deleted
+   */
+  long deleteAll();
 }
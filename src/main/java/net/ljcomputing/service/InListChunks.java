@@ -0,0 +1,88 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Splits keys into chunks for <code>IN</code> list queries. Each chunk is
+ *  padded, by repeating its last key, up to one of a few fixed sizes, so
+ *  queries for any number of keys reuse the same few statements and the
+ *  prepared statement cache stays warm.
+ *
+ * @author James G. Willmore
+ */
+public final class InListChunks {
+
+  /** The chunk sizes, in ascending order. */
+  private static final int[] SIZES = { 1, 4, 16, 64, 256 };
+
+  /** The maximum chunk size. */
+  public static final int MAXIMUM_SIZE = SIZES[SIZES.length - 1];
+
+  /**
+   * Instantiates a new in list chunks.
+   */
+  private InListChunks() {
+  }
+
+  /**
+   * Split the distinct keys into padded chunks.
+   *
+   * @param <K> the key type
+   * @param keys the keys
+   * @return the chunks, empty when there are no keys
+   */
+  public static <K> List<List<K>> of(final Collection<K> keys) {
+    final List<K> distinct = new ArrayList<K>(new LinkedHashSet<K>(keys));
+    final List<List<K>> chunks = new ArrayList<List<K>>();
+
+    for (int from = 0; from < distinct.size(); from += MAXIMUM_SIZE) {
+      final List<K> chunk = new ArrayList<K>(
+          distinct.subList(from, Math.min(from + MAXIMUM_SIZE, distinct.size())));
+      final int size = sizeFor(chunk.size());
+      final K last = chunk.get(chunk.size() - 1);
+
+      while (chunk.size() < size) {
+        chunk.add(last);
+      }
+
+      chunks.add(chunk);
+    }
+
+    return chunks;
+  }
+
+  /**
+   * Gets the smallest chunk size holding the given number of keys.
+   *
+   * @param count the number of keys
+   * @return the chunk size
+   */
+  private static int sizeFor(final int count) {
+    for (final int size : SIZES) {
+      if (count <= size) {
+        return size;
+      }
+    }
+
+    return MAXIMUM_SIZE;
+  }
+}
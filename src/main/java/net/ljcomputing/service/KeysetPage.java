@@ -0,0 +1,112 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.ljcomputing.entity.PersistedEntity;
+
+/**
+ * A page of entities read by seeking past the last entity of the previous
+ *  page, rather than by offset, so every page costs the same to read.
+ *
+ * @author James G. Willmore
+ * @param <T> the PersistedEntity type
+ */
+public class KeysetPage<T extends PersistedEntity> implements Serializable {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -4270960735637739580L;
+
+  /** The content. */
+  private final List<T> content;
+
+  /** The position of the last entity, null when there are no more pages. */
+  private final ContinuationToken next;
+
+  /**
+   * Instantiates a new keyset page.
+   *
+   * @param content the content
+   * @param next the position of the last entity, null when there are no more pages
+   */
+  public KeysetPage(final List<T> content, final ContinuationToken next) {
+    this.content = content;
+    this.next = next;
+  }
+
+  /**
+   * Create a page from rows read with a limit of one more than the page size.
+   *  The extra row only signals that another page exists and is dropped.
+   *
+   * @param <T> the PersistedEntity type
+   * @param rows the rows read
+   * @param size the page size
+   * @param keyedByModified true, if the page is keyed by modified time stamp and id
+   * @return the keyset page
+   */
+  public static <T extends PersistedEntity> KeysetPage<T> of(final List<T> rows, final int size,
+      final boolean keyedByModified) {
+    if (rows.size() <= size) {
+      return new KeysetPage<T>(rows, null);
+    }
+
+    final List<T> content = new ArrayList<T>(rows.subList(0, size));
+    final T last = content.get(size - 1);
+    final Long modifiedTs = keyedByModified ? last.getModifiedTs() : null;
+
+    return new KeysetPage<T>(content, new ContinuationToken(modifiedTs, last.getId()));
+  }
+
+  /**
+   * Gets the content.
+   *
+   * @return the content
+   */
+  public List<T> getContent() {
+    return content;
+  }
+
+  /**
+   * Checks for a next page.
+   *
+   * @return true, if there is a next page
+   */
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  /**
+   * Gets the position of the last entity of the page.
+   *
+   * @return the position, null when there are no more pages
+   */
+  public ContinuationToken getNext() {
+    return next;
+  }
+
+  /**
+   * Gets the encoded continuation token for the next page.
+   *
+   * @return the continuation token, null when there are no more pages
+   */
+  public String getContinuationToken() {
+    return next == null ? null : next.toString();
+  }
+}
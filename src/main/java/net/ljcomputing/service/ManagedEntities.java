@@ -0,0 +1,66 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Tracks the entities a caller already had in the persistence context when a
+ *  streaming read starts. The cursor hands back those same instances when it
+ *  reaches their rows, so only the instances the read loaded itself may be
+ *  evicted after the consumer has seen them.
+ *
+ * @author James G. Willmore
+ */
+final class ManagedEntities {
+
+  /** The entities managed before the read, by identity. */
+  private final Set<Object> entities = Collections.newSetFromMap(
+      new IdentityHashMap<Object, Boolean>());
+
+  /** The session. */
+  private final Session session;
+
+  /**
+   * Instantiates a new managed entities, taking a snapshot of the entities in
+   * the persistence context of the given session.
+   *
+   * @param session the session
+   */
+  ManagedEntities(final Session session) {
+    this.session = session;
+    entities.addAll(((SessionImplementor) session).getPersistenceContext()
+        .getEntitiesByKey().values());
+  }
+
+  /**
+   * Evict the entity from the session, unless it was managed before the read.
+   *
+   * @param entity the entity
+   */
+  void evictLoaded(final Object entity) {
+    if (entity != null && !entities.contains(entity)) {
+      session.evict(entity);
+    }
+  }
+
+}
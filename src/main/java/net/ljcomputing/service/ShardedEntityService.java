@@ -0,0 +1,568 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.ljcomputing.datasource.ConsistentHashRing;
+import net.ljcomputing.datasource.ShardContext;
+import net.ljcomputing.entity.PersistedEntity;
+import net.ljcomputing.id.ShardedIdGenerator;
+
+/**
+ * Routes the calls of an {@link EntityService} to the shard holding the 
+ *  entity. The delegate runs on a {@link net.ljcomputing.datasource.ShardRoutingDataSource}
+ *  and its entities extend {@link net.ljcomputing.entity.AbstractShardedPersistedEntity}.
+ *  
+ * <p>New entities are placed on a shard by a consistent hash of their UUID;
+ *  saved entities are found from the shard held in their id. Each call runs
+ *  in a new transaction on its shard, so work spanning shards is not atomic.
+ *  {@link #readAll()} reads every shard in parallel on the executor and
+ *  gathers the results; calls taking many entities or ids are split by 
+ *  shard, and deletes by condition run on each shard in turn.</p>
+ *  
+ * <p>Keyset pages and change feeds read a page following the same position
+ *  from every shard in parallel, and merge them on the page key, id or 
+ *  modified time stamp and id, so pages are in order across all shards.
+ *  The streaming {@link #readAll(Consumer)} streams each shard in turn, in
+ *  id order within the shard.</p>
+ *  
+ * <p>An entity stays on the shard it was created on, so once the ring 
+ *  grows, its UUID may hash to another shard. Reads and updates by UUID
+ *  missing on the shard the UUID hashes to fall back to the other shards.</p>
+ *  
+ * <p>Writes must go through this service, so the write behind buffer of 
+ *  the delegate, which would flush outside of any shard, must not be 
+ *  enabled; the service refuses a delegate with write behind enabled.</p>
+ *
+ * @author James G. Willmore
+ * @param <T> the PersitedEntity type
+ */
+public class ShardedEntityService<T extends PersistedEntity> implements EntityService<T> {
+
+  /** The number of entities read from each shard per page by change feeds. */
+  private static final int FEED_PAGE_SIZE = 100;
+
+  /** The order of pages keyed by id. */
+  private static final Comparator<PersistedEntity> BY_ID = 
+      Comparator.comparing(PersistedEntity::getId);
+
+  /** The order of pages keyed by modified time stamp and id. */
+  private static final Comparator<PersistedEntity> BY_MODIFIED = 
+      Comparator.comparing(PersistedEntity::getModifiedTs).thenComparing(BY_ID);
+
+  /** The delegate. */
+  private final EntityService<T> delegate;
+
+  /** The ring placing new entities on shards. */
+  private final ConsistentHashRing ring;
+
+  /** The executor reading the shards in parallel. */
+  private final Executor executor;
+
+  /** The read write transaction template. */
+  private final TransactionTemplate writeTemplate;
+
+  /** The read only transaction template. */
+  private final TransactionTemplate readTemplate;
+
+  /**
+   * Instantiates a new sharded entity service.
+   *
+   * @param delegate the delegate, without write behind enabled
+   * @param ring the ring, with as many shards as the routing data source
+   * @param transactionManager the transaction manager
+   * @param executor the executor reading the shards in parallel
+   */
+  public ShardedEntityService(final EntityService<T> delegate, final ConsistentHashRing ring,
+      final PlatformTransactionManager transactionManager, final Executor executor) {
+    if (ring.getShards() > ShardedIdGenerator.MAXIMUM_SHARDS) {
+      throw new IllegalArgumentException("at most " + ShardedIdGenerator.MAXIMUM_SHARDS 
+          + " shards are supported");
+    }
+
+    if (delegate instanceof AbstractEntityService
+        && ((AbstractEntityService<?, ?>) delegate).isWriteBehindEnabled()) {
+      throw new IllegalArgumentException("write behind of the delegate must not be enabled");
+    }
+
+    this.delegate = delegate;
+    this.ring = ring;
+    this.executor = executor;
+    this.writeTemplate = new TransactionTemplate(transactionManager);
+    this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.readTemplate = new TransactionTemplate(transactionManager);
+    this.readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.readTemplate.setReadOnly(true);
+  }
+
+  /**
+   * Create or update the entity on its shard.
+   *
+   * @see net.ljcomputing.service.EntityService
+   *    #createOrUpdate(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  public T createOrUpdate(final T entity) {
+    return onShard(shardOf(entity), writeTemplate, () -> delegate.createOrUpdate(entity));
+  }
+
+  /**
+   * Create or update the entities, in a transaction per shard.
+   *
+   * @see net.ljcomputing.service.EntityService#createOrUpdateAll(java.lang.Iterable)
+   */
+  @Override
+  public long createOrUpdateAll(final Iterable<T> entities) {
+    final List<T> all = new ArrayList<T>();
+    entities.forEach(all::add);
+    long total = 0;
+
+    for (final Map.Entry<Integer, List<T>> shard : byShard(all, this::shardOf).entrySet()) {
+      total += onShard(shard.getKey(), writeTemplate,
+          () -> delegate.createOrUpdateAll(shard.getValue()));
+    }
+
+    return total;
+  }
+
+  /**
+   * Update the entity on the shard held in the id.
+   *
+   * @see net.ljcomputing.service.EntityService#updateById(java.lang.Long, java.util.Map)
+   */
+  @Override
+  public int updateById(final Long id, final Map<String, ?> changes) {
+    return onShard(ShardedIdGenerator.shardOf(id), writeTemplate,
+        () -> delegate.updateById(id, changes));
+  }
+
+  /**
+   * Update the entity on the shard its UUID hashes to, else on the shard
+   * holding it, trying the other shards in turn.
+   *
+   * @see net.ljcomputing.service.EntityService#updateByUuid(java.lang.String, java.util.Map)
+   */
+  @Override
+  public int updateByUuid(final String uuid, final Map<String, ?> changes) {
+    final int hashed = ring.shardOf(uuid);
+    final int updated = onShard(hashed, writeTemplate, () -> delegate.updateByUuid(uuid, changes));
+
+    for (int shard = 0; updated == 0 && shard < ring.getShards(); shard++) {
+      if (shard != hashed) {
+        final int moved = onShard(shard, writeTemplate, () -> delegate.updateByUuid(uuid, changes));
+
+        if (moved > 0) {
+          return moved;
+        }
+      }
+    }
+
+    return updated;
+  }
+
+  /**
+   * Read all the entities of every shard, reading the shards in parallel.
+   *
+   * @return the entities, grouped by shard
+   * @see net.ljcomputing.service.EntityService#readAll()
+   */
+  @Override
+  public List<T> readAll() {
+    final List<T> entities = new ArrayList<T>();
+
+    for (final List<T> shard : scatter(delegate::readAll, -1)) {
+      entities.addAll(shard);
+    }
+
+    return entities;
+  }
+
+  /**
+   * Stream the entities of every shard in turn, in id order within each 
+   * shard.
+   *
+   * @see net.ljcomputing.service.EntityService#readAll(java.util.function.Consumer)
+   */
+  @Override
+  public long readAll(final Consumer<? super T> consumer) {
+    long total = 0;
+
+    for (int shard = 0; shard < ring.getShards(); shard++) {
+      total += onShard(shard, readTemplate, () -> delegate.readAll(consumer));
+    }
+
+    return total;
+  }
+
+  /**
+   * Read an entity by id from the shard held in the id.
+   *
+   * @see net.ljcomputing.service.EntityService#readById(java.lang.Long)
+   */
+  @Override
+  public T readById(final Long id) {
+    return onShard(ShardedIdGenerator.shardOf(id), readTemplate, () -> delegate.readById(id));
+  }
+
+  /**
+   * Read the entities from the shards held in their ids.
+   *
+   * @see net.ljcomputing.service.EntityService#readByIds(java.util.Collection)
+   */
+  @Override
+  public Map<Long, T> readByIds(final Collection<Long> ids) {
+    final Map<Long, T> entities = new HashMap<Long, T>();
+
+    for (final Map.Entry<Integer, List<Long>> shard 
+        : byShard(ids, ShardedIdGenerator::shardOf).entrySet()) {
+      entities.putAll(onShard(shard.getKey(), readTemplate,
+          () -> delegate.readByIds(shard.getValue())));
+    }
+
+    return entities;
+  }
+
+  /**
+   * Read an entity by UUID from the shard it hashes to, else from the other
+   * shards in parallel.
+   *
+   * @see net.ljcomputing.service.EntityService#readByUuid(java.lang.String)
+   */
+  @Override
+  public T readByUuid(final String uuid) {
+    final int hashed = ring.shardOf(uuid);
+    final T entity = onShard(hashed, readTemplate, () -> delegate.readByUuid(uuid));
+
+    if (entity != null) {
+      return entity;
+    }
+
+    for (final T moved : scatter(() -> delegate.readByUuid(uuid), hashed)) {
+      if (moved != null) {
+        return moved;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Read the entities from the shards their UUIDs hash to. The UUIDs not
+   * found there are read from every shard in parallel.
+   *
+   * @see net.ljcomputing.service.EntityService#readByUuids(java.util.Collection)
+   */
+  @Override
+  public Map<String, T> readByUuids(final Collection<String> uuids) {
+    final Map<String, T> entities = new HashMap<String, T>();
+
+    for (final Map.Entry<Integer, List<String>> shard : byShard(uuids, ring::shardOf).entrySet()) {
+      entities.putAll(onShard(shard.getKey(), readTemplate,
+          () -> delegate.readByUuids(shard.getValue())));
+    }
+
+    final Set<String> missing = new HashSet<String>(uuids);
+    missing.removeAll(entities.keySet());
+
+    if (!missing.isEmpty()) {
+      for (final Map<String, T> moved : scatter(() -> delegate.readByUuids(missing), -1)) {
+        entities.putAll(moved);
+      }
+    }
+
+    return entities;
+  }
+
+  /**
+   * Read the page following the id from every shard in parallel, and merge
+   * them in id order.
+   *
+   * @see net.ljcomputing.service.EntityService#readPageAfter(java.lang.Long, int)
+   */
+  @Override
+  public KeysetPage<T> readPageAfter(final Long lastId, final int size) {
+    return merge(scatter(() -> delegate.readPageAfter(lastId, size), -1), size, false);
+  }
+
+  /**
+   * Read the page following the modified time stamp and id from every shard
+   * in parallel, and merge them in modified time stamp and id order.
+   *
+   * @see net.ljcomputing.service.EntityService
+   *    #readPageAfter(java.lang.Long, java.lang.Long, int)
+   */
+  @Override
+  public KeysetPage<T> readPageAfter(final Long lastModifiedTs, final Long lastId,
+      final int size) {
+    return merge(scatter(() -> delegate.readPageAfter(lastModifiedTs, lastId, size), -1), size,
+        true);
+  }
+
+  /**
+   * Feed the changes of every shard in modified time stamp and id order, 
+   * reading merged pages of the shards in turn.
+   *
+   * @see net.ljcomputing.service.EntityService
+   *    #readModifiedSince(long, java.lang.Long, java.util.function.Consumer)
+   */
+  @Override
+  public long readModifiedSince(final long modifiedTs, final Long afterId,
+      final Consumer<? super T> consumer) {
+    KeysetPage<T> page = readModifiedSince(modifiedTs, afterId, FEED_PAGE_SIZE);
+    long count = 0;
+
+    while (true) {
+      page.getContent().forEach(consumer);
+      count += page.getContent().size();
+
+      if (!page.hasNext()) {
+        return count;
+      }
+
+      page = readModifiedSince(page.getNext().getModifiedTs(), page.getNext().getId(),
+          FEED_PAGE_SIZE);
+    }
+  }
+
+  /**
+   * Read a page of the changes of every shard in parallel, and merge them in
+   * modified time stamp and id order.
+   *
+   * @see net.ljcomputing.service.EntityService#readModifiedSince(long, java.lang.Long, int)
+   */
+  @Override
+  public KeysetPage<T> readModifiedSince(final long modifiedTs, final Long afterId,
+      final int size) {
+    return merge(scatter(() -> delegate.readModifiedSince(modifiedTs, afterId, size), -1), size,
+        true);
+  }
+
+  /**
+   * Read the merged page following the one that returned the token.
+   *
+   * @see net.ljcomputing.service.EntityService#readPage(java.lang.String, int)
+   */
+  @Override
+  public KeysetPage<T> readPage(final String continuationToken, final int size) {
+    final ContinuationToken token = ContinuationToken.parse(continuationToken);
+
+    return token.isKeyedByModified() ? readPageAfter(token.getModifiedTs(), token.getId(), size)
+        : readPageAfter(token.getId(), size);
+  }
+
+  /**
+   * Delete the entity from its shard.
+   *
+   * @see net.ljcomputing.service.EntityService
+   *    #delete(net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  public void delete(final T entity) {
+    onShard(shardOf(entity), writeTemplate, () -> {
+      delegate.delete(entity);
+      return entity;
+    });
+  }
+
+  /**
+   * Delete the entities from the shards held in their ids, in a transaction
+   * per shard.
+   *
+   * @see net.ljcomputing.service.EntityService#deleteByIds(java.util.Collection)
+   */
+  @Override
+  public long deleteByIds(final Collection<Long> ids) {
+    long total = 0;
+
+    for (final Map.Entry<Integer, List<Long>> shard 
+        : byShard(ids, ShardedIdGenerator::shardOf).entrySet()) {
+      total += onShard(shard.getKey(), writeTemplate,
+          () -> delegate.deleteByIds(shard.getValue()));
+    }
+
+    return total;
+  }
+
+  /**
+   * Delete the entities last modified before the time stamp from every 
+   * shard in turn, in a transaction per shard.
+   *
+   * @see net.ljcomputing.service.EntityService#deleteModifiedBefore(long)
+   */
+  @Override
+  public long deleteModifiedBefore(final long modifiedTs) {
+    long total = 0;
+
+    for (int shard = 0; shard < ring.getShards(); shard++) {
+      total += onShard(shard, writeTemplate, () -> delegate.deleteModifiedBefore(modifiedTs));
+    }
+
+    return total;
+  }
+
+  /**
+   * Delete the entities of every shard in turn, in a transaction per shard.
+   *
+   * @see net.ljcomputing.service.EntityService#deleteAll()
+   */
+  @Override
+  public long deleteAll() {
+    long total = 0;
+
+    for (int shard = 0; shard < ring.getShards(); shard++) {
+      total += onShard(shard, writeTemplate, delegate::deleteAll);
+    }
+
+    return total;
+  }
+
+  /**
+   * Gets the shard of an entity: the shard held in its id once saved, else
+   * the shard its UUID hashes to, creating the UUID if needed.
+   *
+   * @param entity the entity
+   * @return the shard
+   */
+  public int shardOf(final T entity) {
+    if (entity.getId() != null) {
+      return ShardedIdGenerator.shardOf(entity.getId());
+    }
+
+    entity.createUuid();
+    return ring.shardOf(entity.getUuid());
+  }
+
+  /**
+   * Group the given keys by shard.
+   *
+   * @param <K> the key type
+   * @param keys the keys
+   * @param shardOf the shard of a key
+   * @return the keys, by shard in shard order
+   */
+  private static <K> Map<Integer, List<K>> byShard(final Collection<K> keys,
+      final ToIntFunction<K> shardOf) {
+    final Map<Integer, List<K>> shards = new TreeMap<Integer, List<K>>();
+
+    for (final K key : keys) {
+      shards.computeIfAbsent(shardOf.applyAsInt(key), shard -> new ArrayList<K>()).add(key);
+    }
+
+    return shards;
+  }
+
+  /**
+   * Do read only work on every shard but one, in parallel on the executor.
+   *
+   * @param <V> the result type
+   * @param work the work
+   * @param skipped the shard skipped, -1 to work on every shard
+   * @return the results, in shard order
+   */
+  private <V> List<V> scatter(final Supplier<V> work, final int skipped) {
+    final List<CompletableFuture<V>> reads = new ArrayList<CompletableFuture<V>>();
+
+    for (int shard = 0; shard < ring.getShards(); shard++) {
+      final int current = shard;
+
+      if (current != skipped) {
+        reads.add(CompletableFuture.supplyAsync(
+            () -> onShard(current, readTemplate, work), executor));
+      }
+    }
+
+    final List<V> results = new ArrayList<V>(reads.size());
+
+    try {
+      for (final CompletableFuture<V> read : reads) {
+        results.add(read.join());
+      }
+    } catch (CompletionException exception) {
+      if (exception.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) exception.getCause();
+      }
+
+      throw exception;
+    }
+
+    return results;
+  }
+
+  /**
+   * Merge the pages read from every shard following the same position. 
+   * Each holds the next rows of its shard, so the first rows of the merge
+   * are the next rows across all shards.
+   *
+   * @param pages the pages, one per shard
+   * @param size the page size
+   * @param keyedByModified true, if the pages are keyed by modified time stamp and id
+   * @return the merged page
+   */
+  private KeysetPage<T> merge(final List<KeysetPage<T>> pages, final int size,
+      final boolean keyedByModified) {
+    final List<T> rows = new ArrayList<T>();
+    boolean more = false;
+
+    for (final KeysetPage<T> page : pages) {
+      rows.addAll(page.getContent());
+      more |= page.hasNext();
+    }
+
+    rows.sort(keyedByModified ? BY_MODIFIED : BY_ID);
+
+    if (rows.size() > size || !more) {
+      return KeysetPage.of(rows, size, keyedByModified);
+    }
+
+    final T last = rows.get(rows.size() - 1);
+    return new KeysetPage<T>(rows, 
+        new ContinuationToken(keyedByModified ? last.getModifiedTs() : null, last.getId()));
+  }
+
+  /**
+   * Do work in a new transaction on a shard.
+   *
+   * @param <V> the result type
+   * @param shard the shard
+   * @param template the transaction template
+   * @param work the work
+   * @return the result of the work
+   */
+  private static <V> V onShard(final int shard, final TransactionTemplate template,
+      final Supplier<V> work) {
+    return ShardContext.call(shard, () -> template.execute(status -> work.get()));
+  }
+}
@@ -0,0 +1,304 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.SerializationUtils;
+
+import net.ljcomputing.entity.PersistedEntity;
+
+/**
+ * Buffers entity writes and hands them to a writer in batches. Repeated 
+ *  writes of the same entity before a flush are coalesced, keeping only the
+ *  latest state. The buffer holds a snapshot of each entity taken when it is
+ *  written, and hands out copies, so later changes to the caller's instance
+ *  are not written unless it is written again.
+ *  
+ * <p>Pending writes are flushed when the flush size is reached, every flush
+ *  interval, and on {@link #flush()} and {@link #close()}. The number of
+ *  pending entities, counting those being flushed, is bounded: a write that
+ *  finds the buffer full flushes it on the caller's thread first, and is 
+ *  rejected, without being buffered, when the flush fails or leaves the 
+ *  buffer full.</p>
+ *  
+ * <p>The writer applies each batch in its own transaction, so a buffered 
+ *  write escapes the caller's transaction: it is not undone when that 
+ *  transaction rolls back. Writes still pending when the process dies are 
+ *  lost, so the buffer suits state that may be rewritten, such as last seen
+ *  time stamps and counters.</p>
+ *
+ * @author James G. Willmore
+ * @param <T> the PersistedEntity type
+ */
+public class WriteBehindBuffer<T extends PersistedEntity> implements Closeable {
+
+  /** The SLF4J Logger. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+  /** The pending entities, by id. */
+  private final Map<Long, T> pending = new ConcurrentHashMap<Long, T>();
+
+  /** The writer of a batch of entities. */
+  private final Consumer<List<T>> writer;
+
+  /** The number of entities written per batch. */
+  private final int flushSize;
+
+  /** The free slots for pending entities, taken before an entity is added. */
+  private final Semaphore slots;
+
+  /** The scheduler of periodic and size triggered flushes. */
+  private final ScheduledExecutorService scheduler;
+
+  /** The lock serializing flushes. */
+  private final Object flushLock = new Object();
+
+  /** Set once closed. */
+  private volatile boolean closed;
+
+  /**
+   * Instantiates a new write behind buffer.
+   *
+   * @param writer the writer of a batch of entities
+   * @param flushSize the number of entities written per batch
+   * @param maxPending the maximum number of pending entities
+   * @param flushIntervalMillis the interval between periodic flushes, in milliseconds
+   */
+  public WriteBehindBuffer(final Consumer<List<T>> writer, final int flushSize,
+      final int maxPending, final long flushIntervalMillis) {
+    if (flushSize < 1 || maxPending < flushSize) {
+      throw new IllegalArgumentException(
+          "flush size must be greater than zero and no more than the maximum pending");
+    }
+
+    this.writer = writer;
+    this.flushSize = flushSize;
+    this.slots = new Semaphore(maxPending);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "write-behind");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis,
+        flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffer the write of a snapshot of the given entity, replacing any 
+   * pending write of the same entity. When the buffer is full, it is flushed
+   * on the caller's thread before the entity is buffered. A write racing 
+   * {@link #close()} is flushed by the caller, so it is never left pending.
+   *
+   * @param entity the entity, which must have an id
+   * @return true, if buffered, false when closed and the caller must write
+   *    the entity itself
+   * @throws IllegalStateException when still full after flushing
+   */
+  public boolean write(final T entity) {
+    if (closed) {
+      return false;
+    }
+
+    final Long id = entity.getId();
+
+    if (id == null) {
+      throw new IllegalArgumentException("only entities with an id can be buffered");
+    }
+
+    final T snapshot = copy(entity);
+
+    if (pending.replace(id, snapshot) == null) {
+      if (!slots.tryAcquire()) {
+        flush();
+
+        if (!slots.tryAcquire()) {
+          throw new IllegalStateException("write behind buffer is full");
+        }
+      }
+
+      if (pending.put(id, snapshot) != null) {
+        slots.release();
+      }
+    }
+
+    if (closed) {
+      flush();
+    } else if (pending.size() >= flushSize) {
+      scheduler.execute(this::flushQuietly);
+    }
+
+    return true;
+  }
+
+  /**
+   * Discard the pending write of the entity with the given id, waiting for
+   * any flush in progress, so the entity is not written after it is deleted.
+   *
+   * @param id the id
+   * @return the discarded entity, null if none
+   */
+  public T discard(final Long id) {
+    synchronized (flushLock) {
+      final T discarded = pending.remove(id);
+
+      if (discarded != null) {
+        slots.release();
+      }
+
+      return discarded;
+    }
+  }
+
+  /**
+   * Discard the pending writes of the entities with the given ids.
+   *
+   * @param ids the ids
+   * @see #discard(Long)
+   */
+  public void discardAll(final Iterable<Long> ids) {
+    synchronized (flushLock) {
+      for (final Long id : ids) {
+        if (pending.remove(id) != null) {
+          slots.release();
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets a copy of the pending state of the entity with the given id.
+   *
+   * @param id the id
+   * @return the pending entity, null if none
+   */
+  public T getPending(final Long id) {
+    final T entity = pending.get(id);
+    return entity == null ? null : copy(entity);
+  }
+
+  /**
+   * Gets the number of pending entities.
+   *
+   * @return the number of pending entities
+   */
+  public int size() {
+    return pending.size();
+  }
+
+  /**
+   * Write all pending entities, in batches of the flush size. When a batch
+   * fails, its entities are returned to the buffer, unless rewritten since.
+   * The slots of a batch are freed once it is written.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      List<T> batch = nextBatch();
+
+      while (!batch.isEmpty()) {
+        try {
+          writer.accept(batch);
+        } catch (RuntimeException exception) {
+          for (final T entity : batch) {
+            if (pending.putIfAbsent(entity.getId(), entity) != null) {
+              slots.release();
+            }
+          }
+
+          throw exception;
+        }
+
+        slots.release(batch.size());
+        batch = nextBatch();
+      }
+    }
+  }
+
+  /**
+   * Snapshot an entity.
+   *
+   * @param entity the entity
+   * @return the copy
+   */
+  @SuppressWarnings("unchecked")
+  private T copy(final T entity) {
+    return (T) SerializationUtils.deserialize(SerializationUtils.serialize(entity));
+  }
+
+  /**
+   * Flush, logging rather than throwing failures. Used by the scheduler.
+   */
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException exception) {
+      LOGGER.error("Could not flush pending writes:", exception);
+    }
+  }
+
+  /**
+   * Take up to a flush size of pending entities. An entity rewritten while 
+   * being taken stays pending, so its latest state is written later.
+   *
+   * @return the batch, empty when nothing is pending
+   */
+  private List<T> nextBatch() {
+    final List<T> batch = new ArrayList<T>(Math.min(flushSize, pending.size()));
+
+    for (final Map.Entry<Long, T> entry : pending.entrySet()) {
+      if (pending.remove(entry.getKey(), entry.getValue())) {
+        batch.add(entry.getValue());
+      }
+
+      if (batch.size() == flushSize) {
+        break;
+      }
+    }
+
+    return batch;
+  }
+
+  /**
+   * Stop accepting writes, flush the pending entities and stop the scheduler.
+   *
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() {
+    closed = true;
+    scheduler.shutdown();
+
+    try {
+      scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+
+    flush();
+  }
+}
@@ -0,0 +1,41 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.statistics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector counting each SQL statement in the open 
+ *  {@link StatementScopes}. The statement is not changed. Configure it with
+ *  the <code>hibernate.session_factory.statement_inspector</code> setting.
+ *
+ * @author James G. Willmore
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -2978264813722414046L;
+
+  /**
+   * @see org.hibernate.resource.jdbc.spi.StatementInspector#inspect(java.lang.String)
+   */
+  @Override
+  public String inspect(final String sql) {
+    StatementScopes.statement();
+    return sql;
+  }
+}
@@ -0,0 +1,91 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.statistics;
+
+/**
+ * Assertions guarding the query budget of a unit of work in tests: the
+ *  work runs in a scope of its own and an {@link AssertionError} is thrown
+ *  when it prepares more SQL statements than expected.
+ *  
+ * <pre>
+ * StatementAssertions.assertMaxStatements(1, () -&gt; service.listAssociation(club));
+ * </pre>
+ *
+ * @author James G. Willmore
+ */
+public final class StatementAssertions {
+
+  /**
+   * Instantiates new statement assertions.
+   */
+  private StatementAssertions() {
+  }
+
+  /**
+   * Run the work and assert it prepared exactly the expected number of 
+   * statements.
+   *
+   * @param expected the expected number of statements
+   * @param work the work
+   * @return the statistics of the work
+   */
+  public static StatementStatistics assertStatements(final long expected, final Runnable work) {
+    final StatementStatistics statistics = measure(work);
+
+    if (statistics.getStatements() != expected) {
+      throw new AssertionError("expected " + expected + " statements: " + statistics);
+    }
+
+    return statistics;
+  }
+
+  /**
+   * Run the work and assert it prepared at most the given number of 
+   * statements.
+   *
+   * @param maximum the maximum number of statements
+   * @param work the work
+   * @return the statistics of the work
+   */
+  public static StatementStatistics assertMaxStatements(final long maximum, final Runnable work) {
+    final StatementStatistics statistics = measure(work);
+
+    if (statistics.getStatements() > maximum) {
+      throw new AssertionError("expected at most " + maximum + " statements: " + statistics);
+    }
+
+    return statistics;
+  }
+
+  /**
+   * Run the work in a scope of its own.
+   *
+   * @param work the work
+   * @return the statistics of the work
+   */
+  public static StatementStatistics measure(final Runnable work) {
+    final StatementStatistics statistics = StatementScopes.open("assertion");
+
+    try {
+      work.run();
+    } finally {
+      StatementScopes.close(statistics);
+    }
+
+    return statistics;
+  }
+}
@@ -0,0 +1,186 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The statement statistics scopes open on each thread. Every statement, 
+ *  entity load, collection fetch and flush is counted by all the scopes 
+ *  open on the thread performing it, so nested scopes each see the work 
+ *  done within them.
+ *  
+ * <p>When a transaction listener is set, a scope is also opened for each 
+ *  Spring managed transaction doing any work, and handed to the listener 
+ *  after the transaction completes.</p>
+ *
+ * <p>Counting requires {@link CountingStatementInspector} to be configured 
+ *  as the Hibernate statement inspector; entity loads, collection fetches 
+ *  and flushes are counted by the listeners registered by 
+ *  {@link StatementStatisticsIntegrator}.</p>
+ *
+ * @author James G. Willmore
+ */
+public final class StatementScopes {
+
+  /** The scopes open on the thread, null when none is open. */
+  private static final ThreadLocal<List<StatementStatistics>> OPEN = 
+      new ThreadLocal<List<StatementStatistics>>();
+
+  /** The key of the transaction scope bound to the current transaction. */
+  private static final Object TRANSACTION_KEY = new Object();
+
+  /** The listener of completed transaction scopes, null to not open them. */
+  private static volatile Consumer<StatementStatistics> transactionListener;
+
+  /**
+   * Instantiates new statement scopes.
+   */
+  private StatementScopes() {
+  }
+
+  /**
+   * Open a scope on the current thread; it must be closed on the same thread.
+   *
+   * @param name the scope name
+   * @return the statistics of the scope
+   */
+  public static StatementStatistics open(final String name) {
+    List<StatementStatistics> open = OPEN.get();
+
+    if (open == null) {
+      open = new ArrayList<StatementStatistics>();
+      OPEN.set(open);
+    }
+
+    final StatementStatistics statistics = new StatementStatistics(name);
+    open.add(statistics);
+    return statistics;
+  }
+
+  /**
+   * Close a scope; its statistics no longer change.
+   *
+   * @param statistics the statistics of the scope
+   */
+  public static void close(final StatementStatistics statistics) {
+    final List<StatementStatistics> open = OPEN.get();
+
+    if (open != null) {
+      for (int i = open.size() - 1; i >= 0; i--) {
+        if (open.get(i) == statistics) {
+          open.remove(i);
+          break;
+        }
+      }
+
+      if (open.isEmpty()) {
+        OPEN.remove();
+      }
+    }
+  }
+
+  /**
+   * Sets the listener of completed transaction scopes.
+   *
+   * @param listener the listener, null to stop opening transaction scopes
+   */
+  public static void setTransactionListener(final Consumer<StatementStatistics> listener) {
+    transactionListener = listener;
+  }
+
+  /**
+   * Count a SQL statement.
+   */
+  static void statement() {
+    for (final StatementStatistics statistics : scopes()) {
+      statistics.statement();
+    }
+  }
+
+  /**
+   * Count an entity load.
+   */
+  static void entityLoad() {
+    for (final StatementStatistics statistics : scopes()) {
+      statistics.entityLoad();
+    }
+  }
+
+  /**
+   * Count a collection fetch.
+   */
+  static void collectionFetch() {
+    for (final StatementStatistics statistics : scopes()) {
+      statistics.collectionFetch();
+    }
+  }
+
+  /**
+   * Count a flush.
+   */
+  static void flush() {
+    for (final StatementStatistics statistics : scopes()) {
+      statistics.flush();
+    }
+  }
+
+  /**
+   * Gets the scopes open on the current thread, first opening the scope of 
+   * the current transaction when transaction scopes are enabled.
+   *
+   * @return the open scopes
+   */
+  private static List<StatementStatistics> scopes() {
+    final Consumer<StatementStatistics> listener = transactionListener;
+
+    if (listener != null && TransactionSynchronizationManager.isSynchronizationActive()
+        && !TransactionSynchronizationManager.hasResource(TRANSACTION_KEY)) {
+      openTransactionScope(listener);
+    }
+
+    final List<StatementStatistics> open = OPEN.get();
+    return open == null ? Collections.<StatementStatistics>emptyList() : open;
+  }
+
+  /**
+   * Open the scope of the current transaction, closed and handed to the 
+   * listener after the transaction completes.
+   *
+   * @param listener the listener of completed transaction scopes
+   */
+  private static void openTransactionScope(final Consumer<StatementStatistics> listener) {
+    final StatementStatistics statistics = open("transaction "
+        + TransactionSynchronizationManager.getCurrentTransactionName());
+    TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, statistics);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+            close(statistics);
+            listener.accept(statistics);
+          }
+        });
+  }
+}
@@ -0,0 +1,134 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.statistics;
+
+/**
+ * The statements, entity loads, collection fetches and flushes counted
+ *  while a scope was open. A scope is confined to the thread that opened it.
+ *
+ * @author James G. Willmore
+ * @see StatementScopes
+ */
+public class StatementStatistics {
+
+  /** The scope name. */
+  private final String name;
+
+  /** The number of SQL statements prepared. */
+  private long statements;
+
+  /** The number of entities loaded. */
+  private long entityLoads;
+
+  /** The number of collections fetched. */
+  private long collectionFetches;
+
+  /** The number of flushes. */
+  private long flushes;
+
+  /**
+   * Instantiates new statement statistics.
+   *
+   * @param name the scope name
+   */
+  StatementStatistics(final String name) {
+    this.name = name;
+  }
+
+  /**
+   * Gets the scope name.
+   *
+   * @return the name
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the number of SQL statements prepared.
+   *
+   * @return the statements
+   */
+  public long getStatements() {
+    return statements;
+  }
+
+  /**
+   * Gets the number of entities loaded.
+   *
+   * @return the entity loads
+   */
+  public long getEntityLoads() {
+    return entityLoads;
+  }
+
+  /**
+   * Gets the number of collections fetched.
+   *
+   * @return the collection fetches
+   */
+  public long getCollectionFetches() {
+    return collectionFetches;
+  }
+
+  /**
+   * Gets the number of flushes.
+   *
+   * @return the flushes
+   */
+  public long getFlushes() {
+    return flushes;
+  }
+
+  /**
+   * Count a SQL statement.
+   */
+  void statement() {
+    statements++;
+  }
+
+  /**
+   * Count an entity load.
+   */
+  void entityLoad() {
+    entityLoads++;
+  }
+
+  /**
+   * Count a collection fetch.
+   */
+  void collectionFetch() {
+    collectionFetches++;
+  }
+
+  /**
+   * Count a flush.
+   */
+  void flush() {
+    flushes++;
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return "StatementStatistics [name=" + name + ", statements=" + statements 
+        + ", entityLoads=" + entityLoads + ", collectionFetches=" + collectionFetches 
+        + ", flushes=" + flushes + "]";
+  }
+}
@@ -0,0 +1,106 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.statistics;
+
+import org.hibernate.HibernateException;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Hibernate integrator, discovered through 
+ *  <code>META-INF/services</code>, registering the listeners counting 
+ *  entity loads, collection fetches and flushes in the open 
+ *  {@link StatementScopes}. With no scope open a listener costs a thread
+ *  local lookup.
+ *
+ * @author James G. Willmore
+ */
+public class StatementStatisticsIntegrator implements Integrator {
+
+  /**
+   * @see org.hibernate.integrator.spi.Integrator#integrate(org.hibernate.boot.Metadata, 
+   *    org.hibernate.engine.spi.SessionFactoryImplementor, 
+   *    org.hibernate.service.spi.SessionFactoryServiceRegistry)
+   */
+  @Override
+  public void integrate(final Metadata metadata, final SessionFactoryImplementor sessionFactory,
+      final SessionFactoryServiceRegistry serviceRegistry) {
+    final EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+    final CountingListener listener = new CountingListener();
+    registry.appendListeners(EventType.POST_LOAD, listener);
+    registry.appendListeners(EventType.INIT_COLLECTION, listener);
+    registry.appendListeners(EventType.FLUSH, listener);
+  }
+
+  /**
+   * @see org.hibernate.integrator.spi.Integrator#disintegrate(
+   *    org.hibernate.engine.spi.SessionFactoryImplementor, 
+   *    org.hibernate.service.spi.SessionFactoryServiceRegistry)
+   */
+  @Override
+  public void disintegrate(final SessionFactoryImplementor sessionFactory,
+      final SessionFactoryServiceRegistry serviceRegistry) {
+    // nothing to release
+  }
+
+  /**
+   * The listener counting entity loads, collection fetches and flushes.
+   */
+  private static class CountingListener implements PostLoadEventListener,
+      InitializeCollectionEventListener, FlushEventListener {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 4706617412520896457L;
+
+    /**
+     * @see org.hibernate.event.spi.PostLoadEventListener
+     *    #onPostLoad(org.hibernate.event.spi.PostLoadEvent)
+     */
+    @Override
+    public void onPostLoad(final PostLoadEvent event) {
+      StatementScopes.entityLoad();
+    }
+
+    /**
+     * @see org.hibernate.event.spi.InitializeCollectionEventListener
+     *    #onInitializeCollection(org.hibernate.event.spi.InitializeCollectionEvent)
+     */
+    @Override
+    public void onInitializeCollection(final InitializeCollectionEvent event) {
+      StatementScopes.collectionFetch();
+    }
+
+    /**
+     * @see org.hibernate.event.spi.FlushEventListener
+     *    #onFlush(org.hibernate.event.spi.FlushEvent)
+     */
+    @Override
+    public void onFlush(final FlushEvent event) throws HibernateException {
+      StatementScopes.flush();
+    }
+  }
+}
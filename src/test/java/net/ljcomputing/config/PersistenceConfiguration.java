@@ -16,88 +16,66 @@
 
 package net.ljcomputing.config;
 
-import java.sql.Driver;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
-import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
-import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
-import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import net.ljcomputing.id.PooledSequenceGenerator;
+import net.ljcomputing.index.EnableIndexedRepositories;
+import net.ljcomputing.index.IndexedPersistenceUnitPostProcessor;
 
 /**
- * Persistence configuration.
+ * Persistence configuration. Entities and repositories are read from the
+ * build-time index rather than scanned for, and the schema created by the
+ * versioned migration scripts is validated rather than generated.
  * 
  * @author James G. Willmore
  *
  */
 @Configuration
-@PropertySource("classpath:datasource.properties")
-@ComponentScan(basePackages = { "net.ljcomputing" })
+@PropertySource({ "classpath:datasource.properties", "classpath:test-datasource.properties" })
+@ComponentScan(basePackages = { "net.ljcomputing" }, excludeFilters = @Filter(
+    type = FilterType.REGEX, pattern = "net\\.ljcomputing\\.autoconfigure\\..*"))
 @EnableAutoConfiguration
 @EnableAspectJAutoProxy
-@EnableJpaRepositories(basePackages = { "net.ljcomputing.repository" })
-@EntityScan({ "net.ljcomputing.entity" })
+@EnableIndexedRepositories(basePackages = { "net.ljcomputing.repository" })
 @EnableTransactionManagement
 public class PersistenceConfiguration {
 
-  /** The SLF4J Logger. */
-  private static final Logger LOGGER = LoggerFactory.getLogger(PersistenceConfiguration.class);
+  /** The data source, auto-configured from the datasource properties. */
+  @Autowired
+  private transient DataSource dataSource;
 
-  /** The url. */
-  @Value("${datasource.url}")
-  private transient String url;
+  /** The JDBC batch size. */
+  @Value("${datasource.batchSize}")
+  private transient int batchSize;
 
-  /** The username. */
-  @Value("${datasource.username}")
-  private transient String username;
+  /** The batch fetch size for lazy associations. */
+  @Value("${datasource.batchFetchSize}")
+  private transient int batchFetchSize;
 
-  /** The password. */
-  @Value("${datasource.password}")
-  private transient String password;
-
-  /** The pool name. */
-  @Value("${datasource.poolName}")
-  private transient String poolName;
-
-  /** The connection timeout. */
-  @Value("${datasource.connectionTimeout}")
-  private transient int connectionTimeout;
-
-  /** The max lifetime. */
-  @Value("${datasource.maxLifetime}")
-  private transient int maxLifetime;
-
-  /** The maximum pool size. */
-  @Value("${datasource.maximumPoolSize}")
-  private transient int maximumPoolSize;
-
-  /** The minimum idle. */
-  @Value("${datasource.minimumIdle}")
-  private transient int minimumIdle;
-
-  /** The idle timeout. */
-  @Value("${datasource.idleTimeout}")
-  private transient int idleTimeout;
+  /** The schema mode, validate or update. */
+  @Value("${datasource.schema:validate}")
+  private transient String schema;
 
   /**
    * Property sources placeholder configurer.
@@ -110,109 +88,43 @@ public class PersistenceConfiguration {
   }
 
   /**
-   * Data source.
+   * Entity manager factory. Nothing is scanned; the indexed entities are
+   * added to the persistence unit. Being a factory bean, it is started after
+   * the Flyway migration of the schema.
    *
-   * @return the data source
-   */
-  @Bean(destroyMethod = "close")
-  public DataSource dataSource() {
-    LOGGER.debug("using the following configuration: url:[{}] username:[{}] password:[********]",
-        url, username);
-
-    try {
-      return new HikariDataSource(hikariConfig()); //NOPMD
-    } catch (SQLException exception) {
-      LOGGER.error("Could not create data source:", exception);
-    }
-
-    return null;
-  }
-
-  /**
-   * Gets the driver class name.
-   *
-   * @return the driver class name
-   * @throws SQLException the SQL exception
-   */
-  private String getDriverClassName() throws SQLException {
-    final Driver driver = DriverManager.getDriver(url);
-    final Class<?> driverClass = driver.getClass(); //NOPMD
-    return driverClass.getName(); //NOPMD
-  }
-
-  /**
-   * Hikari config.
-   *
-   * @return the hikari config
-   * @throws SQLException the SQL exception
+   * @return the entity manager factory bean
    */
   @Bean
-  public HikariConfig hikariConfig() throws SQLException {
-    final HikariConfig hikariConfig = new HikariConfig();
-
-    initConnectionPool(hikariConfig);
-    addPoolProperties(hikariConfig);
-    addAdditionalPoolProperties(hikariConfig);
-
-    return hikariConfig;
-  }
-
-  /**
-   * Adds the pool properties.
-   *
-   * @param hikariConfig the hikari config
-   */
-  private void addPoolProperties(final HikariConfig hikariConfig) {
-    hikariConfig.setPoolName(poolName);
-    hikariConfig.setMaximumPoolSize(maximumPoolSize);
-    hikariConfig.setMinimumIdle(minimumIdle);
-    hikariConfig.setMaxLifetime(maxLifetime);
-    hikariConfig.setConnectionTimeout(connectionTimeout);
-    hikariConfig.setIdleTimeout(idleTimeout);
-  }
-
-  /**
-   * Inits the connection pool.
-   *
-   * @param hikariConfig the hikari config
-   * @throws SQLException the SQL exception
-   */
-  private void initConnectionPool(final HikariConfig hikariConfig) throws SQLException {
-    hikariConfig.setDriverClassName(getDriverClassName());
-    hikariConfig.setJdbcUrl(url);
-    hikariConfig.setUsername(username);
-    hikariConfig.setPassword(password);
-  }
-
-  /**
-   * Adds the additional connection pool properties.
-   *
-   * @param hikariConfig the hikari config
-   */
-  private void addAdditionalPoolProperties(final HikariConfig hikariConfig) {
-    hikariConfig.addDataSourceProperty("datasource.cachePrepStmts", "true");
-    hikariConfig.addDataSourceProperty("datasource.prepStmtCacheSize", "250");
-    hikariConfig.addDataSourceProperty("datasource.prepStmtCacheSqlLimit", "2048");
-    hikariConfig.addDataSourceProperty("datasource.useServerPrepStmts", "true");
+  public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    final LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+    factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+    factory.setPackagesToScan();
+    factory.setPersistenceUnitPostProcessors(
+        new IndexedPersistenceUnitPostProcessor("net.ljcomputing.entity"));
+    factory.setDataSource(dataSource);
+    factory.setJpaPropertyMap(jpaProperties());
+
+    return factory;
   }
 
   /**
-   * Entity manager factory.
+   * JPA properties enabling JDBC batching of inserts and updates. The pooled
+   * id allocation size matches the batch size. Lazy associations not fetched
+   * by a query are initialized in batches rather than one select each.
+   * The schema is validated once migrated, not generated. Statements are
+   * counted by the inspector the auto-configuration adds.
    *
-   * @return the entity manager factory
+   * @return the JPA properties
    */
-  @Bean
-  public EntityManagerFactory entityManagerFactory() {
-    final HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
-    vendorAdapter.setGenerateDdl(true);
-
-    final LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
-    factory.setJpaVendorAdapter(vendorAdapter);
-    factory.setPackagesToScan("net.ljcomputing.entity");
-    factory.setDataSource(dataSource());
-    factory.afterPropertiesSet();
-
-    return factory.getObject();
+  private Map<String, Object> jpaProperties() {
+    final Map<String, Object> properties = new HashMap<String, Object>();
+    properties.put("hibernate.jdbc.batch_size", batchSize);
+    properties.put("hibernate.order_inserts", true);
+    properties.put("hibernate.order_updates", true);
+    properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, batchSize);
+    properties.put("hibernate.default_batch_fetch_size", batchFetchSize);
+    properties.put(AvailableSettings.HBM2DDL_AUTO, schema);
+    return properties;
   }
 
   /**
@@ -223,7 +135,7 @@ public class PersistenceConfiguration {
   @Bean
   public PlatformTransactionManager transactionManager() {
     final JpaTransactionManager txManager = new JpaTransactionManager();
-    txManager.setEntityManagerFactory(entityManagerFactory());
+    txManager.setEntityManagerFactory(entityManagerFactory().getObject());
     return txManager;
   }
 }
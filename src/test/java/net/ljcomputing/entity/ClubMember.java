@@ -0,0 +1,94 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+/**
+ * A Club Member domain, associating a person with a club.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@Entity
+@Table(name = "CLUB_MEMBER", indexes = {
+    @Index(name = "CLUB_MEMBER_CLUB_IDX", columnList = "CLUB_ID, ID"),
+    @Index(name = "CLUB_MEMBER_MEMBER_IDX", columnList = "CLUB_ID, MEMBER_ID", unique = true) })
+public class ClubMember extends AbstractPooledPersistedEntity implements PersistedEntity {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -5921907413367120958L;
+
+  /** The club. */
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "CLUB_ID", nullable = false)
+  private Club club;
+
+  /** The member. */
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "MEMBER_ID", nullable = false)
+  private Person member;
+
+  /**
+   * Gets the club.
+   *
+   * @return the club
+   */
+  public Club getClub() {
+    return club;
+  }
+
+  /**
+   * Sets the club.
+   *
+   * @param club the new club
+   */
+  public void setClub(final Club club) {
+    this.club = club;
+  }
+
+  /**
+   * Gets the member.
+   *
+   * @return the member
+   */
+  public Person getMember() {
+    return member;
+  }
+
+  /**
+   * Sets the member.
+   *
+   * @param member the new member
+   */
+  public void setMember(final Person member) {
+    this.member = member;
+  }
+
+  /**
+   * @see net.ljcomputing.entity.AbstractBasePersistedEntity#toString()
+   */
+  @Override
+  public String toString() {
+    return "ClubMember [" + super.toString() + "]";
+  }
+}
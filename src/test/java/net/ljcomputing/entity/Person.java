@@ -18,6 +18,7 @@ package net.ljcomputing.entity;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.Table;
@@ -29,7 +30,8 @@ import javax.persistence.Table;
  *
  */
 @Entity
-@Table(name = "PERSON")
+@Table(name = "PERSON", indexes = {
+    @Index(name = "PERSON_MODIFIED_IDX", columnList = "MODIFIED_TS, ID") })
 @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
 public class Person extends AbstractPersistedEntity implements PersistedEntity {
 
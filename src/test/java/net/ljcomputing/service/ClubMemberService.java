@@ -0,0 +1,64 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import org.springframework.stereotype.Service;
+
+import net.ljcomputing.entity.Club;
+import net.ljcomputing.entity.ClubMember;
+import net.ljcomputing.entity.Person;
+import net.ljcomputing.repository.ClubMemberRepository;
+
+/**
+ * Club member associated entities service.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@Service
+public class ClubMemberService 
+    extends AbstractAssociatedEntitiesService<Club, Person, ClubMember, ClubMemberRepository> {
+
+  /**
+   * @see net.ljcomputing.service.AbstractAssociatedEntitiesService
+   *    #newAssociation(net.ljcomputing.entity.PersistedEntity, 
+   *    net.ljcomputing.entity.PersistedEntity)
+   */
+  @Override
+  protected ClubMember newAssociation(final Club group, final Person member) {
+    final ClubMember clubMember = new ClubMember();
+    clubMember.setClub(group);
+    clubMember.setMember(member);
+    return clubMember;
+  }
+
+  /**
+   * @see net.ljcomputing.service.AbstractAssociatedEntitiesService#getGroupAttribute()
+   */
+  @Override
+  protected String getGroupAttribute() {
+    return "club";
+  }
+
+  /**
+   * @see net.ljcomputing.service.AbstractAssociatedEntitiesService#getMemberAttribute()
+   */
+  @Override
+  protected String getMemberAttribute() {
+    return "member";
+  }
+}
@@ -0,0 +1,37 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.service;
+
+import javax.transaction.Transactional;
+
+import org.springframework.stereotype.Service;
+
+import net.ljcomputing.entity.ShardedPerson;
+import net.ljcomputing.repository.ShardedPersonRepository;
+
+/**
+ * Sharded person entity service, run on the shard routing data source.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@Service
+@Transactional
+public class ShardedPersonService 
+    extends AbstractEntityService<ShardedPerson, ShardedPersonRepository> {
+
+}
@@ -0,0 +1,245 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+
+import org.hibernate.Hibernate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import net.ljcomputing.config.PersistenceConfiguration;
+import net.ljcomputing.entity.Club;
+import net.ljcomputing.entity.ClubMember;
+import net.ljcomputing.entity.Person;
+import net.ljcomputing.service.ClubMemberService;
+import net.ljcomputing.service.ClubService;
+import net.ljcomputing.service.KeysetPage;
+import net.ljcomputing.service.PersonService;
+import net.ljcomputing.statistics.StatementAssertions;
+import net.ljcomputing.statistics.StatementStatistics;
+
+/**
+ * Associated entities service test.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@Import(PersistenceConfiguration.class)
+public class AssociationTest {
+
+  /** The number of members created. */
+  private static final int MEMBERS = 5;
+
+  /** The number of members created in bulk, spanning three JDBC batches. */
+  private static final int BULK_MEMBERS = 120;
+
+  /**
+   * The statement budget of creating the bulk members: three batched inserts
+   * and at most five reads of the pooled id sequence.
+   */
+  private static final int BULK_STATEMENTS = 8;
+
+  /** The entity manager. */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /** The person service. */
+  @Autowired
+  private transient PersonService personService;
+
+  /** The club service. */
+  @Autowired
+  private transient ClubService clubService;
+
+  /** The club member service. */
+  @Autowired
+  private transient ClubMemberService clubMemberService;
+
+  /**
+   * Test listing the members of a group, fetched with their group member rows.
+   */
+  @Test
+  @Transactional
+  public void testListAssociation() {
+    final Club club = createClub();
+
+    final List<ClubMember> members = clubMemberService.listAssociation(club);
+    assertEquals("wrong number of members", MEMBERS, members.size());
+
+    for (final ClubMember member : members) {
+      assertTrue("member not fetched", Hibernate.isInitialized(member.getMember()));
+    }
+  }
+
+  /**
+   * Test paging and streaming the members of a group. Streaming leaves the
+   * group members the caller already had managed attached.
+   */
+  @Test
+  @Transactional
+  public void testListAssociationPaged() {
+    final Club club = createClub();
+
+    final KeysetPage<ClubMember> first = clubMemberService.listAssociation(club, null, 2);
+    assertEquals("wrong first page size", 2, first.getContent().size());
+    assertTrue("missing next page", first.hasNext());
+    assertTrue("member not fetched",
+        Hibernate.isInitialized(first.getContent().get(0).getMember()));
+
+    final KeysetPage<ClubMember> second = clubMemberService.listAssociation(club,
+        first.getContent().get(1).getId(), 2);
+    final KeysetPage<ClubMember> last = clubMemberService.listAssociation(club,
+        second.getContent().get(1).getId(), 2);
+    assertEquals("wrong last page size", 1, last.getContent().size());
+    assertFalse("unexpected next page", last.hasNext());
+
+    final long streamed = clubMemberService.listAssociation(club,
+        (ClubMember member) -> assertNotNull("member not read", member.getMember().getName()));
+    assertEquals("wrong number of members streamed", MEMBERS, streamed);
+
+    final ClubMember paged = first.getContent().get(0);
+    assertTrue("paged group member detached by stream", entityManager.contains(paged));
+    assertTrue("paged member detached by stream", entityManager.contains(paged.getMember()));
+  }
+
+  /**
+   * Test listing the members of a group takes a single statement, however
+   * many members there are.
+   */
+  @Test
+  @Transactional
+  public void testListAssociationStatements() {
+    final Club club = createClub();
+
+    final StatementStatistics statistics = StatementAssertions.assertStatements(1, () -> {
+      for (final ClubMember member : clubMemberService.listAssociation(club)) {
+        assertNotNull("member not read", member.getMember().getName());
+      }
+    });
+    assertEquals("wrong number of entities loaded", MEMBERS * 2, statistics.getEntityLoads());
+    assertEquals("unexpected collection fetches", 0, statistics.getCollectionFetches());
+  }
+
+  /**
+   * Test bulk creation and removal of members, and counting members.
+   */
+  @Test
+  @Transactional
+  public void testBulkAssociation() {
+    final Club club = new Club();
+    club.setName("bulk club");
+    clubService.createOrUpdate(club);
+
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i <= MEMBERS; i++) {
+      final Person person = new Person();
+      person.setName("bulk member " + i);
+      people.add(person);
+    }
+
+    personService.createOrUpdateAll(people);
+    final Person outsider = people.remove(MEMBERS);
+
+    assertEquals("wrong number of members created", MEMBERS,
+        clubMemberService.createAssociations(club, people));
+    assertEquals("wrong member count", MEMBERS, clubMemberService.countAssociation(club));
+    assertTrue("member not associated", clubMemberService.isAssociated(club, people.get(0)));
+    assertFalse("outsider associated", clubMemberService.isAssociated(club, outsider));
+
+    assertTrue("club detached by create", entityManager.contains(club));
+
+    final List<ClubMember> loaded = clubMemberService.listAssociation(club);
+    assertTrue("member not managed", entityManager.contains(loaded.get(0)));
+    assertEquals("wrong number of members removed", 3,
+        clubMemberService.removeAssociations(club, people.subList(0, 3)));
+    assertFalse("removed member still managed", entityManager.contains(loaded.get(0)));
+    assertTrue("remaining member detached", entityManager.contains(loaded.get(3)));
+    assertTrue("club detached by remove", entityManager.contains(club));
+    assertEquals("wrong member count after removal", MEMBERS - 3,
+        clubMemberService.countAssociation(club));
+    assertFalse("removed member associated",
+        clubMemberService.isAssociated(club, people.get(0)));
+  }
+
+  /**
+   * Test bulk creation of members is written in JDBC batches, not a statement
+   * per member.
+   */
+  @Test
+  @Transactional
+  public void testBulkAssociationStatements() {
+    final Club club = new Club();
+    club.setName("batched club");
+    clubService.createOrUpdate(club);
+
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i < BULK_MEMBERS; i++) {
+      final Person person = new Person();
+      person.setName("batched member " + i);
+      people.add(person);
+    }
+
+    personService.createOrUpdateAll(people);
+
+    StatementAssertions.assertMaxStatements(BULK_STATEMENTS, () -> assertEquals(
+        "wrong number of members created", BULK_MEMBERS,
+        clubMemberService.createAssociations(club, people)));
+    assertEquals("wrong member count", BULK_MEMBERS, clubMemberService.countAssociation(club));
+  }
+
+  /**
+   * Create a club with members, clearing the persistence context so that
+   * members must be read from the database.
+   *
+   * @return the club
+   */
+  private Club createClub() {
+    final Club club = new Club();
+    club.setName("club");
+    clubService.createOrUpdate(club);
+
+    for (int i = 0; i < MEMBERS; i++) {
+      final Person person = new Person();
+      person.setName("member " + i);
+      clubMemberService.createAssociation(club, personService.createOrUpdate(person));
+    }
+
+    entityManager.flush();
+    entityManager.clear();
+
+    return club;
+  }
+}
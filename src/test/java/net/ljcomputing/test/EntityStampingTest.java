@@ -0,0 +1,137 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import net.ljcomputing.aspect.CreateEntityAspect;
+import net.ljcomputing.clock.EntityClocks;
+import net.ljcomputing.entity.PersistedEntityListener;
+import net.ljcomputing.entity.Person;
+import net.ljcomputing.repository.PersonRepository;
+
+/**
+ * Entity stamping test, through the repository aspect and through the 
+ * entity listener. Their costs are compared by the JMH StampingBenchmark.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class EntityStampingTest {
+
+  /** The time of the entity clock. */
+  private static final long NOW = 1000L;
+
+  /**
+   * Test the aspect stamps entities saved through a repository. The 
+   * repository target does nothing, so only the aspect stamps.
+   */
+  @Test
+  public void testAspect() {
+    final PersonRepository target = (PersonRepository) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] { PersonRepository.class },
+        (proxy, method, args) -> "save".equals(method.getName()) ? args[0] : null);
+    final AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.addAspect(new CreateEntityAspect());
+    final PersonRepository repository = factory.getProxy();
+
+    EntityClocks.set(() -> NOW);
+
+    try {
+      assertStamped("aspect", repository.save(new Person()));
+    } finally {
+      EntityClocks.reset();
+    }
+  }
+
+  /**
+   * Test the aspect bean is registered when the property is not set.
+   */
+  @Test
+  public void testAspectEnabledByDefault() {
+    assertEquals("aspect not enabled by default", 1, countAspects(null));
+  }
+
+  /**
+   * Test the aspect bean is not registered when disabled by property.
+   */
+  @Test
+  public void testAspectDisabledByProperty() {
+    assertEquals("aspect not disabled by property", 0, countAspects("false"));
+  }
+
+  /**
+   * Test the entity listener stamps entities, as invoked by the persistence
+   * provider.
+   */
+  @Test
+  public void testListener() {
+    final Person person = new Person();
+
+    EntityClocks.set(() -> NOW);
+
+    try {
+      new PersistedEntityListener().prePersist(person);
+    } finally {
+      EntityClocks.reset();
+    }
+
+    assertStamped("listener", person);
+  }
+
+  /**
+   * Count the aspect beans registered in a context with the given stamping
+   * aspect property. Conditions are evaluated as the aspect is registered.
+   *
+   * @param enabled the <code>entity.stamping.aspect</code> property, null if not set
+   * @return the number of aspect beans
+   */
+  private static int countAspects(final String enabled) {
+    try (AnnotationConfigApplicationContext context = 
+        new AnnotationConfigApplicationContext()) {
+      if (enabled != null) {
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+            Collections.<String, Object>singletonMap("entity.stamping.aspect", enabled)));
+      }
+
+      context.register(CreateEntityAspect.class);
+      context.refresh();
+      return context.getBeansOfType(CreateEntityAspect.class).size();
+    }
+  }
+
+  /**
+   * Assert the entity has a UUID and time stamps from the entity clock.
+   *
+   * @param name the name of the stamping path
+   * @param person the person
+   */
+  private static void assertStamped(final String name, final Person person) {
+    assertNotNull(name + " did not set the UUID", person.getUuid());
+    assertEquals(name + " did not set the modified time stamp", Long.valueOf(NOW),
+        person.getModifiedTs());
+  }
+}
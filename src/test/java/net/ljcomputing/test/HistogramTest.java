@@ -0,0 +1,116 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.ljcomputing.metrics.Histogram;
+
+/**
+ * Histogram test.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class HistogramTest {
+
+  /** The relative error of a bucket upper bound. */
+  private static final double ERROR = 0.125;
+
+  /** The number of values recorded for the quantile test. */
+  private static final int VALUES = 100000;
+
+  /**
+   * Test the buckets of small values, powers of two and the maximum value.
+   */
+  @Test
+  public void testBuckets() {
+    for (int value = 0; value < 8; value++) {
+      assertEquals("small value not in a bucket of its own", value, Histogram.bucket(value));
+      assertEquals("wrong upper bound of small value", value, Histogram.upperBound(value));
+    }
+
+    assertEquals("wrong bucket of 8", 8, Histogram.bucket(8));
+    assertEquals("wrong upper bound of 8", 8, Histogram.upperBound(8));
+
+    for (int exponent = 3; exponent < Long.SIZE - 1; exponent++) {
+      final long power = 1L << exponent;
+      final int bucket = Histogram.bucket(power);
+
+      assertEquals("wrong bucket of 2^" + exponent, (exponent - 2) * 8, bucket);
+      assertEquals("wrong upper bound of 2^" + exponent, power + (power >>> 3) - 1,
+          Histogram.upperBound(bucket));
+      assertEquals("2^" + exponent + " - 1 not in the previous bucket", bucket - 1,
+          Histogram.bucket(power - 1));
+    }
+
+    assertEquals("wrong bucket of Long.MAX_VALUE", 487, Histogram.bucket(Long.MAX_VALUE));
+    assertEquals("wrong upper bound of the last bucket", Long.MAX_VALUE,
+        Histogram.upperBound(487));
+  }
+
+  /**
+   * Test every bucket starts after the upper bound of the previous one, and
+   * spans no more than the relative error.
+   */
+  @Test
+  public void testBucketBounds() {
+    for (int bucket = 8; bucket < 488; bucket++) {
+      final long lower = Histogram.upperBound(bucket - 1) + 1;
+      final long upper = Histogram.upperBound(bucket);
+
+      assertEquals("lower bound not in bucket " + bucket, bucket, Histogram.bucket(lower));
+      assertEquals("upper bound not in bucket " + bucket, bucket, Histogram.bucket(upper));
+      assertTrue("bucket " + bucket + " too wide", upper - lower <= lower * ERROR);
+    }
+  }
+
+  /**
+   * Test quantiles of a uniform distribution are within the relative error.
+   */
+  @Test
+  public void testQuantiles() {
+    final Histogram histogram = new Histogram();
+
+    for (int value = 1; value <= VALUES; value++) {
+      histogram.record(value);
+    }
+
+    assertEquals("wrong count", VALUES, histogram.getCount());
+    assertEquals("wrong max", VALUES, histogram.getMax());
+    assertEquals("wrong mean", (VALUES + 1) / 2.0, histogram.getMean(), 0.001);
+    assertWithinError("p50", VALUES / 2, histogram.getValueAtQuantile(0.5));
+    assertWithinError("p99", VALUES * 99 / 100, histogram.getValueAtQuantile(0.99));
+    assertEquals("p100 not the max", VALUES, histogram.getValueAtQuantile(1));
+  }
+
+  /**
+   * Assert a value is within the relative error of the expected value.
+   *
+   * @param name the name of the value
+   * @param expected the expected value
+   * @param actual the actual value
+   */
+  private static void assertWithinError(final String name, final long expected,
+      final long actual) {
+    assertTrue(name + " of " + actual + " not within " + ERROR + " of " + expected,
+        Math.abs(actual - expected) <= expected * ERROR);
+  }
+}
@@ -0,0 +1,99 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.ljcomputing.service.InListChunks;
+
+/**
+ * In list chunks test.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class InListChunksTest {
+
+  /**
+   * Test chunks are padded to the next fixed size by repeating their last key.
+   */
+  @Test
+  public void testPadding() {
+    final int[][] expected = { { 1, 1 }, { 2, 4 }, { 4, 4 }, { 5, 16 }, { 16, 16 },
+        { 17, 64 }, { 64, 64 }, { 65, 256 }, { 256, 256 } };
+
+    for (final int[] counts : expected) {
+      final List<List<Long>> chunks = InListChunks.of(keys(counts[0]));
+      assertEquals("wrong number of chunks for " + counts[0], 1, chunks.size());
+
+      final List<Long> chunk = chunks.get(0);
+      assertEquals("wrong chunk size for " + counts[0], counts[1], chunk.size());
+
+      for (int i = 0; i < chunk.size(); i++) {
+        assertEquals("wrong key at " + i + " for " + counts[0],
+            Long.valueOf(Math.min(i, counts[0] - 1)), chunk.get(i));
+      }
+    }
+  }
+
+  /**
+   * Test keys beyond the maximum size are split into further chunks, each 
+   * padded on its own.
+   */
+  @Test
+  public void testSplit() {
+    final List<List<Long>> chunks = InListChunks.of(keys(InListChunks.MAXIMUM_SIZE + 3));
+
+    assertEquals("wrong number of chunks", 2, chunks.size());
+    assertEquals("first chunk not full", InListChunks.MAXIMUM_SIZE, chunks.get(0).size());
+    assertEquals("second chunk not padded", 4, chunks.get(1).size());
+    assertEquals("second chunk not padded with its last key",
+        Long.valueOf(InListChunks.MAXIMUM_SIZE + 2), chunks.get(1).get(3));
+  }
+
+  /**
+   * Test duplicate keys are dropped before chunking, and no keys give no chunks.
+   */
+  @Test
+  public void testDistinct() {
+    assertEquals("duplicates not dropped", Arrays.asList(Arrays.asList(1L, 2L, 3L, 3L)),
+        InListChunks.of(Arrays.asList(1L, 2L, 1L, 3L, 2L)));
+    assertEquals("chunks for no keys", 0, InListChunks.of(new ArrayList<Long>()).size());
+  }
+
+  /**
+   * Create the keys 0 to count - 1.
+   *
+   * @param count the number of keys
+   * @return the keys
+   */
+  private static List<Long> keys(final int count) {
+    final List<Long> keys = new ArrayList<Long>();
+
+    for (long key = 0; key < count; key++) {
+      keys.add(key);
+    }
+
+    return keys;
+  }
+}
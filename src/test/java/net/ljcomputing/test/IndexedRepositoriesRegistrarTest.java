@@ -0,0 +1,117 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.type.StandardAnnotationMetadata;
+
+import net.ljcomputing.config.PersistenceConfiguration;
+import net.ljcomputing.index.EnableIndexedRepositories;
+import net.ljcomputing.index.EntityIndex;
+import net.ljcomputing.index.IndexedRepositoriesRegistrar;
+
+/**
+ * Indexed repositories registrar test.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class IndexedRepositoriesRegistrarTest {
+
+  /**
+   * Test the indexed repositories are registered under the names 
+   * <code>@EnableJpaRepositories</code> gives them.
+   */
+  @Test
+  public void testRegister() {
+    final DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+
+    new IndexedRepositoriesRegistrar().registerBeanDefinitions(
+        new StandardAnnotationMetadata(PersistenceConfiguration.class), registry);
+
+    assertTrue("person repository not registered",
+        registry.containsBeanDefinition("personRepository"));
+  }
+
+  /**
+   * Test an indexed repository whose bean name is already in use fails the
+   * configuration.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testNameClash() {
+    final DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+    registry.registerBeanDefinition("personRepository", new RootBeanDefinition(Object.class));
+
+    new IndexedRepositoriesRegistrar().registerBeanDefinitions(
+        new StandardAnnotationMetadata(PersistenceConfiguration.class), registry);
+  }
+
+  /**
+   * Test an indexed repository with a custom implementation fails the 
+   * configuration.
+   *
+   * @throws IOException Signals that an I/O exception has occurred.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testCustomImplementation() throws IOException {
+    final Path root = Files.createTempDirectory("index");
+    final Path index = root.resolve(EntityIndex.REPOSITORIES);
+    Files.createDirectories(index.getParent());
+    Files.write(index, Collections.singletonList(CustomRepository.class.getName()),
+        StandardCharsets.UTF_8);
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toUri().toURL() },
+        getClass().getClassLoader())) {
+      final IndexedRepositoriesRegistrar registrar = new IndexedRepositoriesRegistrar();
+      registrar.setBeanClassLoader(classLoader);
+      registrar.registerBeanDefinitions(
+          new StandardAnnotationMetadata(CustomConfiguration.class),
+          new DefaultListableBeanFactory());
+    }
+  }
+
+  /**
+   * Configuration of the indexed repositories in this package.
+   */
+  @EnableIndexedRepositories(basePackages = { "net.ljcomputing.test" })
+  private static class CustomConfiguration {
+  }
+
+  /**
+   * Repository with a custom implementation.
+   */
+  private interface CustomRepository {
+  }
+
+  /**
+   * Custom implementation of {@link CustomRepository}.
+   */
+  private static class CustomRepositoryImpl implements CustomRepository {
+  }
+}
@@ -17,10 +17,23 @@
 package net.ljcomputing.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
 import javax.transaction.Transactional;
 
 import org.junit.Test;
@@ -29,12 +42,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import net.ljcomputing.clock.EntityClocks;
 import net.ljcomputing.config.PersistenceConfiguration;
+import net.ljcomputing.entity.BinaryUuidPerson;
 import net.ljcomputing.entity.Person;
+import net.ljcomputing.entity.UuidBinaryConverter;
+import net.ljcomputing.metrics.EntityMetricsRegistry;
+import net.ljcomputing.metrics.OperationMetrics;
+import net.ljcomputing.metrics.PoolMetrics;
+import net.ljcomputing.metrics.PoolMetricsTrackerFactory;
+import net.ljcomputing.repository.PersonRepository;
+import net.ljcomputing.service.AsyncEntityService;
+import net.ljcomputing.service.AsyncEntityServiceAdapter;
+import net.ljcomputing.service.BinaryUuidPersonService;
+import net.ljcomputing.service.InListChunks;
+import net.ljcomputing.service.KeysetPage;
 import net.ljcomputing.service.PersonService;
+import net.ljcomputing.statistics.StatementAssertions;
 
 /**
  * Persistence test.
@@ -54,6 +83,30 @@ public class PersistenceTest {
   @Autowired
   private transient PersonService personService;
 
+  /** The binary UUID person service. */
+  @Autowired
+  private transient BinaryUuidPersonService binaryUuidPersonService;
+
+  /** The data source. */
+  @Autowired
+  private transient DataSource dataSource;
+
+  /** The entity manager. */
+  @PersistenceContext
+  private transient EntityManager entityManager;
+
+  /** The transaction manager. */
+  @Autowired
+  private transient PlatformTransactionManager transactionManager;
+
+  /** The person repository. */
+  @Autowired
+  private transient PersonRepository personRepository;
+
+  /** The pool metrics tracker factory, auto-configured with the pool. */
+  @Autowired
+  private transient PoolMetricsTrackerFactory poolMetricsTrackerFactory;
+
   /**
    * Test.
    */
@@ -87,6 +140,495 @@ public class PersistenceTest {
     }
   }
 
+  /**
+   * Test bulk create.
+   */
+  @Test
+  @Transactional
+  public void testCreateOrUpdateAll() {
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i < 120; i++) {
+      final Person person = new Person();
+      person.setName("person " + i);
+      people.add(person);
+    }
+
+    assertEquals("not all people were written", 120, personService.createOrUpdateAll(people));
+
+    for (final Person person : people) {
+      validatePerson(person);
+      personService.delete(person);
+    }
+  }
+
+  /**
+   * Test streaming read all, which detaches the entities it loaded but not
+   * those the caller already had managed.
+   */
+  @Test
+  @Transactional
+  public void testReadAllStreaming() {
+    final Person person = new Person();
+    person.setName("streamed");
+    personService.createOrUpdate(person);
+
+    final List<Person> streamed = new ArrayList<Person>();
+    final long count = personService.readAll(p -> streamed.add(p));
+
+    assertTrue("caller's managed entity was detached", entityManager.contains(person));
+
+    for (final Person loaded : streamed) {
+      assertTrue("streamed entity left managed",
+          loaded == person || !entityManager.contains(loaded));
+    }
+
+    assertEquals("streamed count differs", personService.readAll().size(), count);
+    assertEquals("not all people were streamed", count, streamed.size());
+
+    personService.delete(person);
+  }
+
+  /**
+   * Test keyset pagination.
+   */
+  @Test
+  @Transactional
+  public void testReadPage() {
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i < 5; i++) {
+      final Person person = new Person();
+      person.setName("paged " + i);
+      people.add(person);
+    }
+
+    personService.createOrUpdateAll(people);
+
+    final int total = personService.readAll().size();
+    int byId = 0;
+    KeysetPage<Person> page = personService.readPageAfter(null, 2);
+    byId += page.getContent().size();
+
+    while (page.hasNext()) {
+      page = personService.readPage(page.getContinuationToken(), 2);
+      byId += page.getContent().size();
+    }
+
+    int byModified = 0;
+    page = personService.readPageAfter(null, null, 2);
+    byModified += page.getContent().size();
+
+    while (page.hasNext()) {
+      page = personService.readPage(page.getContinuationToken(), 2);
+      byModified += page.getContent().size();
+    }
+
+    assertEquals("id pages do not cover all people", total, byId);
+    assertEquals("modified pages do not cover all people", total, byModified);
+
+    for (final Person person : people) {
+      personService.delete(person);
+    }
+  }
+
+  /**
+   * Test read by uuid and by ids.
+   */
+  @Test
+  @Transactional
+  public void testReadByUuid() {
+    final Person person = new Person();
+    person.setName("uuid");
+    personService.createOrUpdate(person);
+
+    assertEquals("wrong person read by uuid", person.getId(),
+        personService.readByUuid(person.getUuid()).getId());
+    assertEquals("wrong people read by uuids", person.getId(), personService
+        .readByUuids(Collections.singleton(person.getUuid())).get(person.getUuid()).getId());
+    assertEquals("wrong people read by ids", person.getUuid(), personService
+        .readByIds(Collections.singleton(person.getId())).get(person.getId()).getUuid());
+
+    personService.delete(person);
+  }
+
+  /**
+   * Test reading more ids than fit in one chunk, with duplicates, from a
+   * cleared persistence context.
+   */
+  @Test
+  @Transactional
+  public void testReadByIdsChunks() {
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i < InListChunks.MAXIMUM_SIZE + 44; i++) {
+      final Person person = new Person();
+      person.setName("chunk " + i);
+      people.add(person);
+    }
+
+    personService.createOrUpdateAll(people);
+    entityManager.clear();
+
+    final List<Long> ids = new ArrayList<Long>();
+
+    for (final Person person : people) {
+      ids.add(person.getId());
+    }
+
+    final List<Long> duplicated = new ArrayList<Long>(ids);
+    duplicated.addAll(ids.subList(0, 10));
+
+    final Map<Long, Person> read = personService.readByIds(duplicated);
+    assertEquals("not every person read", people.size(), read.size());
+
+    for (final Person person : people) {
+      assertEquals("wrong person read", person.getName(), read.get(person.getId()).getName());
+    }
+
+    personService.deleteByIds(ids);
+  }
+
+  /**
+   * Test a UUID stored in 16 bytes is read back by uuid and uuids.
+   */
+  @Test
+  public void testBinaryUuid() {
+    final BinaryUuidPerson person = new BinaryUuidPerson();
+    person.setName("binary uuid");
+    binaryUuidPersonService.createOrUpdate(person);
+
+    final byte[] stored = new JdbcTemplate(dataSource).queryForObject(
+        "select UUID from BINARY_UUID_PERSON where ID = ?", byte[].class, person.getId());
+    assertEquals("uuid not stored in 16 bytes", UuidBinaryConverter.LENGTH, stored.length);
+
+    final BinaryUuidPerson read = binaryUuidPersonService.readByUuid(person.getUuid());
+    assertEquals("wrong person read by uuid", person.getId(), read.getId());
+    assertEquals("uuid not read back", person.getUuid(), read.getUuid());
+    assertEquals("wrong people read by uuids", person.getId(), binaryUuidPersonService
+        .readByUuids(Collections.singleton(person.getUuid())).get(person.getUuid()).getId());
+
+    binaryUuidPersonService.delete(read);
+  }
+
+  /**
+   * Test time stamps are taken from the entity clock.
+   */
+  @Test
+  @Transactional
+  public void testEntityClock() {
+    final Person person = new Person();
+    person.setName("clock");
+
+    EntityClocks.set(() -> 1000L);
+
+    try {
+      personService.createOrUpdate(person);
+    } finally {
+      EntityClocks.reset();
+    }
+
+    assertEquals("created timestamp not from clock", Long.valueOf(1000L), person.getCreatedTs());
+    assertEquals("modified timestamp not from clock", Long.valueOf(1000L), person.getModifiedTs());
+
+    personService.delete(person);
+  }
+
+  /**
+   * Test entities saved through the repository in bulk are stamped.
+   */
+  @Test
+  @Transactional
+  public void testSaveIterable() {
+    final Person person = new Person();
+    person.setName("iterable");
+
+    personRepository.save(Collections.singletonList(person));
+
+    validatePerson(person);
+    personService.delete(person);
+  }
+
+  /**
+   * Test read by id goes through the cache, and writes invalidate it.
+   */
+  @Test
+  public void testReadByIdCache() {
+    final Person person = new Person();
+    person.setName("cached");
+    personService.createOrUpdate(person);
+
+    final long hits = personService.getCacheStatistics().getHits();
+    personService.readById(person.getId());
+    final Person copy = personService.readById(person.getId());
+    assertEquals("second read was not a cache hit", hits + 1,
+        personService.getCacheStatistics().getHits());
+
+    copy.setName("changed");
+    assertEquals("cached entity changed through a copy", "cached",
+        personService.readById(person.getId()).getName());
+
+    person.setName("updated");
+    personService.createOrUpdate(person);
+    assertEquals("update did not invalidate the cache", "updated",
+        personService.readById(person.getId()).getName());
+    assertEquals("read after update was a cache hit", hits + 2,
+        personService.getCacheStatistics().getHits());
+
+    personService.delete(person);
+  }
+
+  /**
+   * Test the asynchronous service, each call running in its own transaction.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testAsync() throws Exception {
+    final ExecutorService executor = AsyncEntityServiceAdapter.defaultExecutor(2);
+
+    try {
+      final AsyncEntityService<Person> async = new AsyncEntityServiceAdapter<Person>(
+          personService, transactionManager, executor, 2);
+      final Person person = new Person();
+      person.setName("async");
+
+      final Person saved = async.createOrUpdate(person).get();
+      validatePerson(saved);
+      assertEquals("wrong person read", "async", async.readById(saved.getId()).get().getName());
+
+      async.delete(saved).get();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Test a call made while all slots are in flight fails at once rather than
+   * blocking the caller.
+   */
+  @Test
+  public void testAsyncSaturated() {
+    final AsyncEntityService<Person> async = new AsyncEntityServiceAdapter<Person>(
+        personService, transactionManager, runnable -> { }, 1);
+
+    final CompletableFuture<Person> inFlight = async.readById(0L);
+    final long started = System.nanoTime();
+    final CompletableFuture<Person> rejected = async.readById(0L);
+
+    assertTrue("caller was blocked",
+        System.nanoTime() - started < TimeUnit.SECONDS.toNanos(1));
+    assertFalse("call in flight completed", inFlight.isDone());
+    assertTrue("saturated call not rejected", rejected.isCompletedExceptionally());
+  }
+
+  /**
+   * Test write behind coalesces updates until flushed, keeping the state
+   * each entity had when written.
+   */
+  @Test
+  public void testWriteBehind() {
+    final Person person = new Person();
+    person.setName("write behind");
+    final Person saved = personService.createOrUpdate(person);
+
+    personService.enableWriteBehind(10, 100, 60000);
+
+    try {
+      for (int i = 0; i < 3; i++) {
+        saved.setName("write behind " + i);
+        personService.createOrUpdate(saved);
+      }
+
+      saved.setName("changed after write");
+      assertEquals("pending state not read", "write behind 2",
+          personService.readById(saved.getId()).getName());
+      assertEquals("pending state not read by ids", "write behind 2", personService
+          .readByIds(Collections.singleton(saved.getId())).get(saved.getId()).getName());
+      personService.flushWriteBehind();
+    } finally {
+      personService.disableWriteBehind();
+    }
+
+    assertEquals("coalesced update not written", "write behind 2",
+        personService.readById(saved.getId()).getName());
+
+    personService.delete(saved);
+  }
+
+  /**
+   * Test deleting an entity discards its pending write behind update.
+   */
+  @Test
+  public void testWriteBehindDelete() {
+    final Person person = new Person();
+    person.setName("write behind delete");
+    final Person saved = personService.createOrUpdate(person);
+
+    personService.enableWriteBehind(10, 100, 60000);
+
+    try {
+      saved.setName("write behind deleted");
+      personService.createOrUpdate(saved);
+      personService.delete(saved);
+      personService.flushWriteBehind();
+    } finally {
+      personService.disableWriteBehind();
+    }
+
+    assertNull("deleted entity read", personService.readById(saved.getId()));
+    assertEquals("deleted entity written back", 0,
+        personService.readByUuids(Collections.singleton(saved.getUuid())).size());
+  }
+
+  /**
+   * Test partial updates by id and uuid.
+   */
+  @Test
+  @Transactional
+  public void testPartialUpdate() {
+    final Person person = new Person();
+    person.setName("partial");
+    personService.createOrUpdate(person);
+
+    assertEquals("row not updated by id", 1,
+        personService.updateById(person.getId(), Collections.singletonMap("name", "by id")));
+    assertEquals("name not updated by id", "by id",
+        personService.readById(person.getId()).getName());
+
+    assertEquals("row not updated by uuid", 1,
+        personService.updateByUuid(person.getUuid(), Collections.singletonMap("name", "by uuid")));
+    assertEquals("name not updated by uuid", "by uuid",
+        personService.readById(person.getId()).getName());
+    personService.delete(personService.readById(person.getId()));
+  }
+
+  /**
+   * Test an update by uuid is a single statement, and drops the entity 
+   * cached by id.
+   */
+  @Test
+  public void testUpdateByUuidStatement() {
+    final Person person = new Person();
+    person.setName("one statement");
+    personService.createOrUpdate(person);
+    personService.readById(person.getId());
+
+    StatementAssertions.assertStatements(1, () -> assertEquals("row not updated by uuid", 1,
+        personService.updateByUuid(person.getUuid(), Collections.singletonMap("name", "updated"))));
+    assertEquals("cached entity read after update by uuid", "updated",
+        personService.readById(person.getId()).getName());
+
+    personService.delete(personService.readById(person.getId()));
+  }
+
+  /**
+   * Test reading changes since a checkpoint, including entities sharing the
+   * checkpoint time stamp.
+   */
+  @Test
+  @Transactional
+  public void testReadModifiedSince() {
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i < 3; i++) {
+      final Person person = new Person();
+      person.setName("changed " + i);
+      people.add(person);
+    }
+
+    EntityClocks.set(() -> Long.MAX_VALUE - 1);
+
+    try {
+      personService.createOrUpdateAll(people);
+    } finally {
+      EntityClocks.reset();
+    }
+
+    final List<Person> changed = new ArrayList<Person>();
+    personService.readModifiedSince(Long.MAX_VALUE - 1, null, p -> changed.add(p));
+    assertEquals("changes not read", 3, changed.size());
+
+    final Person checkpoint = changed.get(0);
+    assertEquals("changes after checkpoint not read", 2, personService.readModifiedSince(
+        checkpoint.getModifiedTs(), checkpoint.getId(), 10).getContent().size());
+
+    for (final Person person : people) {
+      personService.delete(person);
+    }
+  }
+
+  /**
+   * Test set based deletes.
+   */
+  @Test
+  @Transactional
+  public void testSetBasedDelete() {
+    final List<Person> people = new ArrayList<Person>();
+
+    for (int i = 0; i < 4; i++) {
+      final Person person = new Person();
+      person.setName("stale " + i);
+      people.add(person);
+    }
+
+    EntityClocks.set(() -> 1L);
+
+    try {
+      personService.createOrUpdateAll(people);
+    } finally {
+      EntityClocks.reset();
+    }
+
+    assertEquals("not deleted by id", 2, personService
+        .deleteByIds(Arrays.asList(people.get(0).getId(), people.get(1).getId())));
+    assertEquals("not deleted by modified time stamp", 2, personService.deleteModifiedBefore(2L));
+    assertNull("deleted person still read", personService.readById(people.get(2).getId()));
+  }
+
+  /**
+   * Test operation metrics are recorded per entity type.
+   */
+  @Test
+  @Transactional
+  public void testMetrics() {
+    final OperationMetrics created = EntityMetricsRegistry.getDefault()
+        .getOperation(Person.class, "createOrUpdate");
+    final OperationMetrics read = EntityMetricsRegistry.getDefault()
+        .getOperation(Person.class, "readById");
+    final long createdBefore = created.getCount();
+    final long readBefore = read.getCount();
+
+    final Person person = new Person();
+    person.setName("measured");
+    personService.createOrUpdate(person);
+    personService.readById(person.getId());
+    personService.readById(-1L);
+
+    assertEquals("create not counted", createdBefore + 1, created.getCount());
+    assertEquals("reads not counted", readBefore + 2, read.getCount());
+    assertTrue("latency not recorded", read.getLatency().getMax() > 0);
+    assertEquals("result size not recorded", 1, read.getResultSize().getMax());
+    LOGGER.debug("metrics: {}", EntityMetricsRegistry.getDefault().getOperations());
+  }
+
+  /**
+   * Test the auto-configured pool records connections acquired and held.
+   */
+  @Test
+  public void testPoolMetrics() {
+    final PoolMetrics pool = poolMetricsTrackerFactory.getPool("CP");
+    assertNotNull("pool metrics not created", pool);
+
+    final long acquiredBefore = pool.getAcquiredCount();
+    personService.readAll();
+
+    assertTrue("connection not counted", pool.getAcquiredCount() > acquiredBefore);
+    assertTrue("usage not recorded", pool.getUsage().getCount() > 0);
+    assertTrue("connections not counted", pool.getTotalConnections() > 0);
+    LOGGER.debug("pool metrics: {}", poolMetricsTrackerFactory.getPools());
+  }
+
   /**
    * Validate person.
    *
@@ -0,0 +1,284 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.ljcomputing.cache.EntityCache;
+import net.ljcomputing.datasource.ReadWriteRoutingDataSource;
+import net.ljcomputing.entity.Person;
+import net.ljcomputing.repository.PersonRepository;
+import net.ljcomputing.service.PersonService;
+
+/**
+ * Read write routing data source test, against two in-memory embedded Derby
+ * databases standing in for the primary and the replica.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class ReadWriteRoutingTest {
+
+  /** The pin window after a write, in milliseconds. */
+  private static final long PIN_WINDOW_MILLIS = 60000;
+
+  /** The number of databases created, keeping each test's databases apart. */
+  private static final AtomicInteger DATABASES = new AtomicInteger();
+
+  /** The URL of the primary holding people. */
+  private static final String PERSON_PRIMARY_URL = "jdbc:derby:memory:personPrimary;create=true";
+
+  /** The URL of the replica holding people. */
+  private static final String PERSON_REPLICA_URL = "jdbc:derby:memory:personReplica;create=true";
+
+  /** The routing data source. */
+  private transient JdbcTemplate jdbcTemplate;
+
+  /** The read only transaction template. */
+  private transient TransactionTemplate readOnly;
+
+  /** The read write transaction template. */
+  private transient TransactionTemplate readWrite;
+
+  /**
+   * Create the databases, each holding its own name.
+   */
+  @Before
+  public void setUp() {
+    final DataSource primary = database("primary");
+    final DataSource replica = database("replica");
+    final DataSource routing = ReadWriteRoutingDataSource.create(primary,
+        Collections.singletonList(replica), PIN_WINDOW_MILLIS);
+    final DataSourceTransactionManager transactionManager = 
+        new DataSourceTransactionManager(routing);
+
+    jdbcTemplate = new JdbcTemplate(routing);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+    readWrite = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Unpin the thread.
+   */
+  @After
+  public void tearDown() {
+    ReadWriteRoutingDataSource.unpin();
+  }
+
+  /**
+   * Test read only transactions go to the replica and the others to the 
+   * primary.
+   */
+  @Test
+  public void testRouting() {
+    assertEquals("read only not routed to replica", "replica", readOnly.execute(status -> name()));
+    assertEquals("read write not routed to primary", "primary", readWrite.execute(status -> name()));
+    assertEquals("no transaction not routed to primary", "primary", name());
+  }
+
+  /**
+   * Test reads are pinned to the primary after a write.
+   */
+  @Test
+  public void testPinAfterWrite() {
+    readWrite.execute(status -> jdbcTemplate.update("update DATABASE_NAME set NAME = NAME"));
+    assertEquals("read not pinned to primary", "primary", readOnly.execute(status -> name()));
+
+    ReadWriteRoutingDataSource.unpin();
+    assertEquals("read not routed to replica", "replica", readOnly.execute(status -> name()));
+
+    ReadWriteRoutingDataSource.pinToPrimary(1, TimeUnit.MINUTES);
+    assertEquals("read not pinned explicitly", "primary", readOnly.execute(status -> name()));
+  }
+
+  /**
+   * Test the entity service, through the JPA transaction manager, reads from
+   * the replica in read only transactions, but only caches what it read from
+   * the primary.
+   */
+  @Test
+  public void testEntityServiceCache() {
+    try (AnnotationConfigApplicationContext context = 
+        new AnnotationConfigApplicationContext(RoutingConfiguration.class)) {
+      final PersonService personService = context.getBean(PersonService.class);
+      personService.setCache(new EntityCache<Person>(10, 1, TimeUnit.MINUTES));
+
+      final Person person = new Person();
+      person.setName("primary");
+      personService.createOrUpdate(person);
+      new JdbcTemplate(new DriverManagerDataSource(PERSON_REPLICA_URL)).update(
+          "insert into PERSON (ID, UUID, CREATED_TS, MODIFIED_TS, NAME) values (?, ?, ?, ?, ?)",
+          person.getId(), person.getUuid(), person.getCreatedTs(), person.getModifiedTs(),
+          "stale");
+
+      assertEquals("read only not routed to replica", "stale",
+          personService.readById(person.getId()).getName());
+      assertEquals("read by ids not routed to replica", "stale", personService
+          .readByIds(Collections.singleton(person.getId())).get(person.getId()).getName());
+      assertEquals("replica read cached", 0, personService.getCacheStatistics().getSize());
+
+      ReadWriteRoutingDataSource.pinToPrimary(1, TimeUnit.MINUTES);
+      assertEquals("read not pinned to primary", "primary",
+          personService.readById(person.getId()).getName());
+      assertEquals("primary read not cached", 1, personService.getCacheStatistics().getSize());
+
+      ReadWriteRoutingDataSource.unpin();
+      assertEquals("cached primary state not read", "primary",
+          personService.readById(person.getId()).getName());
+    }
+  }
+
+  /**
+   * Read the name of the database routed to.
+   *
+   * @return the name
+   */
+  private String name() {
+    return jdbcTemplate.queryForObject("select NAME from DATABASE_NAME", String.class);
+  }
+
+  /**
+   * Create an in-memory database holding its name.
+   *
+   * @param name the name
+   * @return the data source
+   */
+  private static DataSource database(final String name) {
+    final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+        "jdbc:derby:memory:" + name + DATABASES.incrementAndGet() + ";create=true");
+    final JdbcTemplate template = new JdbcTemplate(dataSource);
+    template.execute("create table DATABASE_NAME (NAME varchar(16))");
+    template.update("insert into DATABASE_NAME values (?)", name);
+    return dataSource;
+  }
+
+  /**
+   * Create an in-memory database holding the person table.
+   *
+   * @param url the database URL
+   * @return the data source
+   */
+  private static DataSource personDatabase(final String url) {
+    final DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+    new JdbcTemplate(dataSource).execute("create table PERSON ("
+        + "ID bigint generated by default as identity primary key, "
+        + "UUID varchar(36) not null unique, CREATED_TS bigint not null, "
+        + "MODIFIED_TS bigint not null, NAME varchar(255) not null)");
+    return dataSource;
+  }
+
+  /**
+   * The routing configuration: the persistence stack and the person service
+   * over a read write routing data source, without a pin window so that
+   * writes do not pin the thread. The service is looked up by class, so it
+   * is proxied by class. Not annotated as a configuration class, so that it
+   * is not picked up by the component scan of the other tests.
+   */
+  @EnableTransactionManagement(proxyTargetClass = true)
+  @EnableJpaRepositories(basePackageClasses = PersonRepository.class, 
+      includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, 
+          classes = PersonRepository.class))
+  static class RoutingConfiguration {
+
+    /**
+     * Property sources placeholder configurer.
+     *
+     * @return the property sources placeholder configurer
+     */
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    /**
+     * The read write routing data source over the person databases.
+     *
+     * @return the data source
+     */
+    @Bean
+    public DataSource dataSource() {
+      return ReadWriteRoutingDataSource.create(personDatabase(PERSON_PRIMARY_URL),
+          Collections.singletonList(personDatabase(PERSON_REPLICA_URL)), 0);
+    }
+
+    /**
+     * Entity manager factory.
+     *
+     * @param dataSource the data source
+     * @return the entity manager factory
+     */
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(
+        final DataSource dataSource) {
+      final LocalContainerEntityManagerFactoryBean factory = 
+          new LocalContainerEntityManagerFactoryBean();
+      factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+      factory.setPackagesToScan("net.ljcomputing.entity");
+      factory.setDataSource(dataSource);
+      return factory;
+    }
+
+    /**
+     * Transaction manager.
+     *
+     * @param entityManagerFactory the entity manager factory
+     * @return the JPA transaction manager
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(
+        final EntityManagerFactory entityManagerFactory) {
+      return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    /**
+     * Person service.
+     *
+     * @return the person service
+     */
+    @Bean
+    public PersonService personService() {
+      return new PersonService();
+    }
+  }
+}
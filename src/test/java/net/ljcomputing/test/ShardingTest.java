@@ -0,0 +1,528 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import net.ljcomputing.datasource.ConsistentHashRing;
+import net.ljcomputing.datasource.ShardContext;
+import net.ljcomputing.datasource.ShardRoutingDataSource;
+import net.ljcomputing.entity.ShardedPerson;
+import net.ljcomputing.id.ShardedIdGenerator;
+import net.ljcomputing.service.KeysetPage;
+import net.ljcomputing.repository.ShardedPersonRepository;
+import net.ljcomputing.service.ShardedEntityService;
+import net.ljcomputing.service.ShardedPersonService;
+
+/**
+ * Sharding test, against three in-memory embedded Derby databases.
+ * 
+ * @author James G. Willmore
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ShardingTest.ShardingConfiguration.class)
+public class ShardingTest {
+
+  /** The number of shards. */
+  private static final int SHARDS = 3;
+
+  /** The number of keys placed on the ring. */
+  private static final int KEYS = 3000;
+
+  /** The number of people saved. */
+  private static final int PEOPLE = 30;
+
+  /** The page size, leaving a partial last page. */
+  private static final int PAGE_SIZE = 7;
+
+  /** The sharded person service. */
+  @Autowired
+  private transient ShardedEntityService<ShardedPerson> shardedService;
+
+  /** The ring. */
+  @Autowired
+  private transient ConsistentHashRing ring;
+
+  /** The shard routing data source. */
+  @Autowired
+  private transient DataSource dataSource;
+
+  /** The person service the sharded service delegates to. */
+  @Autowired
+  private transient ShardedPersonService delegate;
+
+  /** The transaction manager. */
+  @Autowired
+  private transient PlatformTransactionManager transactionManager;
+
+  /** The executor reading the shards in parallel. */
+  @Autowired
+  private transient ExecutorService executor;
+
+  /**
+   * Test keys are spread over the shards, and adding a shard only moves the 
+   * keys it takes over.
+   */
+  @Test
+  public void testRing() {
+    final ConsistentHashRing grown = new ConsistentHashRing(SHARDS + 1);
+    final int[] counts = new int[SHARDS];
+    int moved = 0;
+
+    for (int i = 0; i < KEYS; i++) {
+      final String key = UUID.randomUUID().toString();
+      final int shard = ring.shardOf(key);
+      assertEquals("shard of key changed", shard, ring.shardOf(key));
+      counts[shard]++;
+
+      if (grown.shardOf(key) != shard) {
+        assertEquals("key moved between existing shards", SHARDS, grown.shardOf(key));
+        moved++;
+      }
+    }
+
+    for (final int count : counts) {
+      assertTrue("keys not spread over shards: " + count, count > KEYS / SHARDS / 2);
+    }
+
+    assertTrue("too many keys moved: " + moved, moved < KEYS / 2);
+  }
+
+  /**
+   * Test the shard and time are held in generated ids.
+   */
+  @Test
+  public void testIdLayout() {
+    final ShardedIdGenerator generator = new ShardedIdGenerator();
+    final long before = System.currentTimeMillis();
+    long previous = 0;
+
+    for (int shard = 0; shard < ShardedIdGenerator.MAXIMUM_SHARDS; shard += 51) {
+      final long id = generator.id(shard);
+      assertEquals("wrong shard in id", shard, ShardedIdGenerator.shardOf(id));
+      assertTrue("id not positive", id > 0);
+      assertTrue("id time before generation", ShardedIdGenerator.timeOf(id) >= before);
+      assertTrue("ids not increasing", id > previous || shard == 0);
+      previous = id;
+    }
+  }
+
+  /**
+   * Test entities are written to, read from and deleted from their shard, 
+   * and read all gathers every shard.
+   */
+  @Test
+  public void testShardedService() {
+    final List<ShardedPerson> people = new ArrayList<ShardedPerson>();
+
+    for (int i = 0; i < PEOPLE; i++) {
+      final ShardedPerson person = new ShardedPerson();
+      person.setName("sharded " + i);
+      people.add(shardedService.createOrUpdate(person));
+    }
+
+    long stored = 0;
+
+    for (int shard = 0; shard < SHARDS; shard++) {
+      stored += ShardContext.call(shard, () -> new JdbcTemplate(dataSource)
+          .queryForObject("select count(*) from SHARDED_PERSON", Long.class));
+    }
+
+    assertEquals("people not stored once each", PEOPLE, stored);
+
+    for (final ShardedPerson person : people) {
+      assertEquals("id not on the shard of the UUID", ring.shardOf(person.getUuid()),
+          ShardedIdGenerator.shardOf(person.getId()));
+      assertNotNull("person not read by id", shardedService.readById(person.getId()));
+      assertNotNull("person not read by UUID", shardedService.readByUuid(person.getUuid()));
+    }
+
+    assertEquals("read all did not gather every shard", PEOPLE, shardedService.readAll().size());
+
+    final List<Long> ids = new ArrayList<Long>();
+
+    for (final ShardedPerson person : people) {
+      ids.add(person.getId());
+    }
+
+    assertEquals("people not read by ids from every shard", PEOPLE,
+        shardedService.readByIds(ids).size());
+
+    for (final ShardedPerson person : people.subList(0, PEOPLE / 2)) {
+      shardedService.delete(person);
+    }
+
+    assertEquals("people not deleted by ids from every shard", PEOPLE - PEOPLE / 2,
+        shardedService.deleteByIds(ids));
+
+    assertNull("deleted person read", shardedService.readById(people.get(0).getId()));
+    assertEquals("people left after delete", 0, shardedService.readAll().size());
+  }
+
+  /**
+   * Test ids are not generated and connections not routed without a shard.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testNoShardSet() throws Exception {
+    try {
+      new ShardedIdGenerator().generate(null, null);
+      fail("id generated without a shard");
+    } catch (IllegalStateException expected) {
+      assertNull("shard set", ShardContext.get());
+    }
+
+    try {
+      dataSource.getConnection().close();
+      fail("connection routed without a shard");
+    } catch (IllegalStateException expected) {
+      assertNull("shard set", ShardContext.get());
+    }
+  }
+
+  /**
+   * Test streaming reads every shard, and keyset pages and change feeds are
+   * merged in order across the shards.
+   */
+  @Test
+  public void testMergedReads() {
+    final List<ShardedPerson> people = savePeople();
+
+    try {
+      final List<Long> streamed = new ArrayList<Long>();
+      assertEquals("wrong number of people streamed", PEOPLE,
+          shardedService.readAll((ShardedPerson person) -> streamed.add(person.getId())));
+      Collections.sort(streamed);
+      assertEquals("people not streamed from every shard", ids(people), streamed);
+
+      final List<ShardedPerson> byId = new ArrayList<ShardedPerson>();
+      KeysetPage<ShardedPerson> page = shardedService.readPageAfter(null, PAGE_SIZE);
+      assertEquals("wrong first page size", PAGE_SIZE, page.getContent().size());
+      byId.addAll(page.getContent());
+
+      while (page.hasNext()) {
+        page = shardedService.readPage(page.getContinuationToken(), PAGE_SIZE);
+        byId.addAll(page.getContent());
+      }
+
+      assertEquals("pages not in id order across shards", ids(people), ids(byId));
+
+      final List<ShardedPerson> byModified = new ArrayList<ShardedPerson>();
+      page = shardedService.readPageAfter(null, null, PAGE_SIZE);
+      byModified.addAll(page.getContent());
+
+      while (page.hasNext()) {
+        page = shardedService.readPage(page.getContinuationToken(), PAGE_SIZE);
+        byModified.addAll(page.getContent());
+      }
+
+      assertInModifiedOrder(byModified);
+
+      final List<ShardedPerson> changes = new ArrayList<ShardedPerson>();
+      assertEquals("wrong number of changes fed", PEOPLE,
+          shardedService.readModifiedSince(0L, null, changes::add));
+      assertInModifiedOrder(changes);
+
+      final ShardedPerson first = changes.get(0);
+      final KeysetPage<ShardedPerson> since = shardedService.readModifiedSince(
+          first.getModifiedTs(), first.getId(), PAGE_SIZE);
+      assertEquals("change page not following the checkpoint", ids(changes.subList(1,
+          PAGE_SIZE + 1)), ids(since.getContent()));
+      assertTrue("missing next change page", since.hasNext());
+    } finally {
+      shardedService.deleteAll();
+    }
+  }
+
+  /**
+   * Test entities are found by UUID once the ring changes and their UUID 
+   * hashes to another shard than the one holding them.
+   */
+  @Test
+  public void testUuidAfterRingChanges() {
+    final List<ShardedPerson> people = savePeople();
+    final ConsistentHashRing changed = new ConsistentHashRing(SHARDS, 
+        ConsistentHashRing.DEFAULT_VIRTUAL_NODES / 2);
+    final ShardedEntityService<ShardedPerson> reringed = 
+        new ShardedEntityService<ShardedPerson>(delegate, changed, transactionManager, executor);
+
+    try {
+      final List<String> uuids = new ArrayList<String>();
+      int moved = 0;
+
+      for (final ShardedPerson person : people) {
+        uuids.add(person.getUuid());
+
+        if (changed.shardOf(person.getUuid()) != ShardedIdGenerator.shardOf(person.getId())) {
+          moved++;
+        }
+      }
+
+      assertTrue("no person moved by the ring change", moved > 0);
+      assertEquals("people not read by UUIDs after the ring changed", PEOPLE,
+          reringed.readByUuids(uuids).size());
+
+      for (final ShardedPerson person : people) {
+        assertNotNull("person not read by UUID after the ring changed",
+            reringed.readByUuid(person.getUuid()));
+        assertEquals("person not updated by UUID after the ring changed", 1,
+            reringed.updateByUuid(person.getUuid(),
+                Collections.singletonMap("name", "moved " + person.getName())));
+      }
+
+      assertNull("unknown UUID read", reringed.readByUuid(UUID.randomUUID().toString()));
+    } finally {
+      shardedService.deleteAll();
+    }
+  }
+
+  /**
+   * Test a delegate buffering writes behind is refused, as it would flush
+   * outside of any shard.
+   */
+  @Test
+  public void testWriteBehindDelegateRefused() {
+    delegate.enableWriteBehind(PAGE_SIZE, PEOPLE, 1000);
+
+    try {
+      new ShardedEntityService<ShardedPerson>(delegate, ring, transactionManager, executor);
+      fail("delegate with write behind accepted");
+    } catch (IllegalArgumentException expected) {
+      assertFalse("sharded service created", expected.getMessage().isEmpty());
+    } finally {
+      delegate.disableWriteBehind();
+    }
+  }
+
+  /**
+   * Save people through the sharded service.
+   *
+   * @return the people, in id order
+   */
+  private List<ShardedPerson> savePeople() {
+    final List<ShardedPerson> people = new ArrayList<ShardedPerson>();
+
+    for (int i = 0; i < PEOPLE; i++) {
+      final ShardedPerson person = new ShardedPerson();
+      person.setName("merged " + i);
+      people.add(shardedService.createOrUpdate(person));
+    }
+
+    people.sort(Comparator.comparing(ShardedPerson::getId));
+    return people;
+  }
+
+  /**
+   * Gets the ids of the people.
+   *
+   * @param people the people
+   * @return the ids, in the order of the people
+   */
+  private static List<Long> ids(final List<ShardedPerson> people) {
+    final List<Long> ids = new ArrayList<Long>();
+
+    for (final ShardedPerson person : people) {
+      ids.add(person.getId());
+    }
+
+    return ids;
+  }
+
+  /**
+   * Assert all the people saved are read once, in modified time stamp and id
+   * order.
+   *
+   * @param people the people read
+   */
+  private static void assertInModifiedOrder(final List<ShardedPerson> people) {
+    assertEquals("wrong number of people read", PEOPLE, people.size());
+
+    for (int i = 1; i < people.size(); i++) {
+      final ShardedPerson previous = people.get(i - 1);
+      final ShardedPerson current = people.get(i);
+      assertTrue("people not in modified order across shards",
+          previous.getModifiedTs() < current.getModifiedTs()
+          || previous.getModifiedTs().equals(current.getModifiedTs())
+          && previous.getId() < current.getId());
+    }
+  }
+
+  /**
+   * The sharding configuration: the persistence stack over a shard routing
+   * data source. Entities and repositories are scanned for, with plain
+   * <code>@EnableJpaRepositories</code> and packages to scan, keeping that
+   * path covered alongside the indexed one. Not annotated as a 
+   * configuration class, so that it is not picked up by the component scan
+   * of the other tests.
+   */
+  @EnableTransactionManagement
+  @EnableJpaRepositories(basePackageClasses = ShardedPersonRepository.class, 
+      includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, 
+          classes = ShardedPersonRepository.class))
+  static class ShardingConfiguration {
+
+    /**
+     * Property sources placeholder configurer.
+     *
+     * @return the property sources placeholder configurer
+     */
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    /**
+     * The shard routing data source over in-memory databases, each holding 
+     * the sharded person table.
+     *
+     * @return the data source
+     */
+    @Bean
+    public DataSource dataSource() {
+      final List<DataSource> shards = new ArrayList<DataSource>();
+
+      for (int shard = 0; shard < SHARDS; shard++) {
+        final DataSource shardDataSource = new DriverManagerDataSource(
+            "jdbc:derby:memory:shard" + shard + ";create=true");
+        new JdbcTemplate(shardDataSource).execute("create table SHARDED_PERSON ("
+            + "ID bigint not null primary key, UUID varchar(36) not null unique, "
+            + "CREATED_TS bigint not null, MODIFIED_TS bigint not null, "
+            + "NAME varchar(255) not null)");
+        shards.add(shardDataSource);
+      }
+
+      return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * Entity manager factory, started on shard zero, as the routing data 
+     * source needs a shard to read the database metadata from.
+     *
+     * @param dataSource the data source
+     * @return the entity manager factory
+     */
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(
+        final DataSource dataSource) {
+      final LocalContainerEntityManagerFactoryBean factory = 
+          new LocalContainerEntityManagerFactoryBean() {
+            @Override
+            protected EntityManagerFactory createNativeEntityManagerFactory() {
+              return ShardContext.call(0, super::createNativeEntityManagerFactory);
+            }
+          };
+      factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+      factory.setPackagesToScan("net.ljcomputing.entity");
+      factory.setDataSource(dataSource);
+      return factory;
+    }
+
+    /**
+     * Transaction manager.
+     *
+     * @param entityManagerFactory the entity manager factory
+     * @return the JPA transaction manager
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(
+        final EntityManagerFactory entityManagerFactory) {
+      return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    /**
+     * Sharded person service.
+     *
+     * @return the sharded person service
+     */
+    @Bean
+    public ShardedPersonService shardedPersonService() {
+      return new ShardedPersonService();
+    }
+
+    /**
+     * The ring placing people on the shards.
+     *
+     * @return the ring
+     */
+    @Bean
+    public ConsistentHashRing ring() {
+      return new ConsistentHashRing(SHARDS);
+    }
+
+    /**
+     * The executor reading the shards in parallel.
+     *
+     * @return the executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService shardExecutor() {
+      return Executors.newFixedThreadPool(SHARDS);
+    }
+
+    /**
+     * The sharded person service, routing to the shards.
+     *
+     * @param delegate the person service
+     * @param ring the ring
+     * @param transactionManager the transaction manager
+     * @param executor the executor
+     * @return the sharded entity service
+     */
+    @Bean
+    public ShardedEntityService<ShardedPerson> shardedService(
+        final ShardedPersonService delegate, final ConsistentHashRing ring,
+        final PlatformTransactionManager transactionManager, final ExecutorService executor) {
+      return new ShardedEntityService<ShardedPerson>(delegate, ring, transactionManager, executor);
+    }
+  }
+}
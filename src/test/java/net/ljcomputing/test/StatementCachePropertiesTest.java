@@ -0,0 +1,56 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+import net.ljcomputing.datasource.StatementCacheProperties;
+
+/**
+ * Statement cache properties test.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class StatementCachePropertiesTest {
+
+  /**
+   * Test statement cache properties are chosen by driver.
+   */
+  @Test
+  public void testForUrl() {
+    final Properties mysql = StatementCacheProperties.forUrl("jdbc:mysql://localhost/test", 
+        250, 2048);
+    assertEquals("MySQL cache not enabled", "true", mysql.getProperty("cachePrepStmts"));
+    assertEquals("MySQL cache size not set", "250", mysql.getProperty("prepStmtCacheSize"));
+
+    final Properties postgresql = StatementCacheProperties.forUrl(
+        "jdbc:postgresql://localhost/test", 250, 2048);
+    assertEquals("PostgreSQL cache size not set", "250",
+        postgresql.getProperty("preparedStatementCacheQueries"));
+    assertNull("MySQL key set for PostgreSQL", postgresql.getProperty("cachePrepStmts"));
+
+    assertTrue("properties set for Derby", StatementCacheProperties.forUrl(
+        "jdbc:derby:db/test;create=true", 250, 2048).isEmpty());
+  }
+}
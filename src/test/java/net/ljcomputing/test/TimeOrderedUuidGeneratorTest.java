@@ -0,0 +1,130 @@
+/**
+           Copyright 2016, James G. Willmore
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+
+package net.ljcomputing.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import net.ljcomputing.id.TimeOrderedUuidGenerator;
+import net.ljcomputing.id.UuidGenerator;
+
+/**
+ * Time ordered UUID generator test.
+ * 
+ * @author James G. Willmore
+ *
+ */
+public class TimeOrderedUuidGeneratorTest {
+
+  /** The fixed time of the clock, in milliseconds. */
+  private static final long NOW = 1476748800000L;
+
+  /** The number of UUIDs a counter holds per millisecond. */
+  private static final int COUNTER_SIZE = 4096;
+
+  /** The number of threads generating concurrently. */
+  private static final int THREADS = 8;
+
+  /** The number of UUIDs generated by each thread. */
+  private static final int PER_THREAD = 20000;
+
+  /**
+   * Test the version, variant and time bits.
+   */
+  @Test
+  public void testLayout() {
+    final UUID uuid = new TimeOrderedUuidGenerator(() -> NOW).generate();
+
+    assertEquals("wrong version", 7, uuid.version());
+    assertEquals("wrong variant", 2, uuid.variant());
+    assertEquals("wrong time", NOW, uuid.getMostSignificantBits() >>> 16);
+  }
+
+  /**
+   * Test UUIDs generated within one millisecond are ordered by the counter,
+   * and stay ordered when the counter carries into the time.
+   */
+  @Test
+  public void testOrderingWithinMillisecond() {
+    final UuidGenerator generator = new TimeOrderedUuidGenerator(() -> NOW);
+    UUID previous = null;
+
+    for (int i = 0; i < COUNTER_SIZE * 2 + 1; i++) {
+      final UUID uuid = generator.generate();
+      final long mostSigBits = uuid.getMostSignificantBits();
+
+      assertEquals("wrong time", NOW + i / COUNTER_SIZE, mostSigBits >>> 16);
+      assertEquals("wrong counter", i % COUNTER_SIZE, mostSigBits & (COUNTER_SIZE - 1));
+      assertEquals("wrong version after overflow", 7, uuid.version());
+
+      if (previous != null) {
+        assertTrue("not ordered: " + previous + " " + uuid, uuid.compareTo(previous) > 0);
+      }
+
+      previous = uuid;
+    }
+  }
+
+  /**
+   * Test UUIDs generated concurrently are unique, and ordered on each thread.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void testConcurrentUniqueness() throws Exception {
+    final UuidGenerator generator = new TimeOrderedUuidGenerator();
+    final Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    try {
+      final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+      for (int thread = 0; thread < THREADS; thread++) {
+        futures.add(executor.submit(() -> {
+          UUID previous = generator.generate();
+          uuids.add(previous);
+
+          for (int i = 1; i < PER_THREAD; i++) {
+            final UUID uuid = generator.generate();
+            assertTrue("not ordered on thread", uuid.compareTo(previous) > 0);
+            uuids.add(uuid);
+            previous = uuid;
+          }
+        }));
+      }
+
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals("duplicate UUIDs generated", THREADS * PER_THREAD, uuids.size());
+  }
+}
@@ -0,0 +1,68 @@
+-- Schema of the test entities, validated by Hibernate at bootstrap.
+
+create table PERSON (
+  ID bigint generated by default as identity,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint PERSON_PK primary key (ID),
+  constraint PERSON_UUID_UK unique (UUID)
+);
+
+create index PERSON_MODIFIED_IDX on PERSON (MODIFIED_TS, ID);
+
+create table POOLED_PERSON (
+  ID bigint not null,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint POOLED_PERSON_PK primary key (ID),
+  constraint POOLED_PERSON_UUID_UK unique (UUID)
+);
+
+create index POOLED_PERSON_MODIFIED_IDX on POOLED_PERSON (MODIFIED_TS, ID);
+
+-- the increment is the pooled id allocation size, datasource.batchSize
+create sequence PooledPerson_SEQ as bigint start with 1 increment by 50;
+
+create table SHARDED_PERSON (
+  ID bigint not null,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint SHARDED_PERSON_PK primary key (ID),
+  constraint SHARDED_PERSON_UUID_UK unique (UUID)
+);
+
+create table CLUB (
+  ID bigint generated by default as identity,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint CLUB_PK primary key (ID),
+  constraint CLUB_UUID_UK unique (UUID)
+);
+
+create table CLUB_MEMBER (
+  ID bigint not null,
+  UUID varchar(36) not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  CLUB_ID bigint not null,
+  MEMBER_ID bigint not null,
+  constraint CLUB_MEMBER_PK primary key (ID),
+  constraint CLUB_MEMBER_UUID_UK unique (UUID),
+  constraint CLUB_MEMBER_CLUB_FK foreign key (CLUB_ID) references CLUB (ID),
+  constraint CLUB_MEMBER_MEMBER_FK foreign key (MEMBER_ID) references PERSON (ID)
+);
+
+create index CLUB_MEMBER_CLUB_IDX on CLUB_MEMBER (CLUB_ID, ID);
+
+create unique index CLUB_MEMBER_MEMBER_IDX on CLUB_MEMBER (CLUB_ID, MEMBER_ID);
+
+-- group members are created in bulk, so their ids are pooled to batch inserts
+create sequence ClubMember_SEQ as bigint start with 1 increment by 50;
@@ -0,0 +1,13 @@
+-- A person storing its UUID in 16 bytes, through UuidBinaryConverter. The
+-- column is varchar rather than char for bit data, as Hibernate maps byte[]
+-- to VARBINARY and validates the column type against it.
+
+create table BINARY_UUID_PERSON (
+  ID bigint generated by default as identity,
+  UUID varchar(16) for bit data not null,
+  CREATED_TS bigint not null,
+  MODIFIED_TS bigint not null,
+  NAME varchar(255) not null,
+  constraint BINARY_UUID_PERSON_PK primary key (ID),
+  constraint BINARY_UUID_PERSON_UUID_UK unique (UUID)
+);